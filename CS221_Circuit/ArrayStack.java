@@ -0,0 +1,89 @@
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * Unsynchronized, array-backed LIFO stack used by Storage in place of
+ * java.util.Stack, which locks on every push and pop. The array doubles when
+ * full and keeps track of how large the stack got and how often it grew.
+ * 
+ * @author Kyle Truschel
+ */
+public class ArrayStack<T> {
+	public static final int DEFAULT_CAPACITY = 16;
+	private T[] array;
+	/** number of elements, also the index of the next open slot */
+	private int top;
+	/** largest number of elements held at once */
+	private int peakSize;
+	/** number of times the array was grown */
+	private int resizeCount;
+
+	/** Create an empty stack with the default capacity */
+	public ArrayStack() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create an empty stack with room for the given number of elements
+	 * before it has to grow.
+	 * 
+	 * @param initialCapacity starting array size
+	 */
+	@SuppressWarnings("unchecked")
+	public ArrayStack(int initialCapacity) {
+		array = (T[]) (new Object[Math.max(1, initialCapacity)]);
+		top = 0;
+	}
+
+	/**
+	 * Add an element to the top of the stack.
+	 * 
+	 * @param element element to add
+	 */
+	public void push(T element) {
+		if (top == array.length) {
+			array = Arrays.copyOf(array, array.length * 2);
+			resizeCount++;
+		}
+		array[top++] = element;
+		if (top > peakSize) {
+			peakSize = top;
+		}
+	}
+
+	/**
+	 * Remove and return the top element.
+	 * 
+	 * @return most recently pushed element
+	 * @throws EmptyStackException if the stack is empty
+	 */
+	public T pop() {
+		if (top == 0) {
+			throw new EmptyStackException();
+		}
+		T element = array[--top];
+		// let the popped element be garbage collected
+		array[top] = null;
+		return element;
+	}
+
+	/** @return true if the stack has no elements */
+	public boolean isEmpty() {
+		return top == 0;
+	}
+
+	/** @return number of elements on the stack */
+	public int size() {
+		return top;
+	}
+
+	/** @return largest number of elements held at once */
+	public int peakSize() {
+		return peakSize;
+	}
+
+	/** @return number of times the array was grown */
+	public int resizeCount() {
+		return resizeCount;
+	}
+} // class ArrayStack
@@ -0,0 +1,244 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves many board files in one run on a fixed pool of worker threads, so
+ * JVM startup and JIT warm-up are paid once for the whole batch instead of
+ * once per board. Each board gets its own results file holding exactly what
+ * CircuitTracer would print to the console for it, and one summary.csv
+ * lists every board with its SearchMetrics and path counts. Each board gets
+ * its own SearchBudget from the options, so a board that cannot be solved
+ * within it stops with a partial result instead of holding up the batch.
+ * 
+ * @author Kyle Truschel
+ */
+public class BatchTracer {
+	/** name of the summary file written to the output directory */
+	public static final String SUMMARY_FILE = "summary.csv";
+	/** column names of the summary file */
+	private static final String SUMMARY_HEADER = "board,result_file,status,rows,cols,parse_ms,search_ms,output_ms,"
+			+ "states_created,states_retrieved,peak_storage,bytes_allocated,path_length,paths,stopped_by";
+	/** file name endings of the board formats picked up from a directory */
+	private static final List<String> BOARD_SUFFIXES = Arrays.asList(".dat", ".dense", ".rle");
+
+	/** shared by every worker, as a CircuitSolver is thread-safe */
+	private final CircuitSolver solver;
+	private final int workers;
+	private final File outputDir;
+	/** number of boards read and searched successfully */
+	private final AtomicInteger solved = new AtomicInteger();
+
+	/**
+	 * @param options   how to search each board and write its paths
+	 * @param workers   number of boards solved at the same time, at least 1
+	 * @param outputDir directory for the results and summary files
+	 */
+	public BatchTracer(SolverOptions options, int workers, File outputDir) {
+		solver = new CircuitSolver(options);
+		this.workers = workers;
+		this.outputDir = outputDir;
+	}
+
+	/**
+	 * List the boards named by a directory or a list file. A directory gives
+	 * every .dat, .dense and .rle file in it, in name order. A list file gives one board path
+	 * per non-blank line, relative to the list file's directory unless
+	 * absolute.
+	 * 
+	 * @param source directory or list file
+	 * @return board files in the order they should be reported
+	 * @throws IOException if source cannot be read
+	 */
+	public static List<File> listBoards(File source) throws IOException {
+		ArrayList<File> boards = new ArrayList<File>();
+		if (source.isDirectory()) {
+			File[] files = source.listFiles((dir, name) -> BOARD_SUFFIXES.stream().anyMatch(name::endsWith));
+			if (files == null) {
+				throw new FileNotFoundException(source + " (cannot list directory)");
+			}
+			Arrays.sort(files);
+			boards.addAll(Arrays.asList(files));
+		} else {
+			File base = source.getAbsoluteFile().getParentFile();
+			for (String line : Files.readAllLines(source.toPath())) {
+				String name = line.trim();
+				if (name.isEmpty()) {
+					continue;
+				}
+				File board = new File(name);
+				boards.add(board.isAbsolute() ? board : new File(base, name));
+			}
+		}
+		return boards;
+	}
+
+	/**
+	 * Solve every board on the worker pool, then write the summary file. A
+	 * board whose job fails, even with an Error such as running out of
+	 * memory, gets a failed row and the rest of the batch goes on.
+	 * 
+	 * @param boards board files to solve
+	 * @return number of boards that were read and searched successfully
+	 * @throws IOException          if the output directory or summary cannot be
+	 *                              written
+	 * @throws InterruptedException if interrupted while waiting for workers
+	 */
+	public int run(List<File> boards) throws IOException, InterruptedException {
+		if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+			throw new IOException(outputDir + " cannot be created");
+		}
+		ArrayList<Callable<String>> jobs = new ArrayList<Callable<String>>();
+		ArrayList<File> resultFiles = new ArrayList<File>();
+		HashSet<String> usedNames = new HashSet<String>();
+		for (File board : boards) {
+			File results = new File(outputDir, resultName(board, usedNames));
+			resultFiles.add(results);
+			jobs.add(() -> solve(board, results));
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		solved.set(0);
+		try (PrintWriter summary = new PrintWriter(
+				new BufferedWriter(new FileWriter(new File(outputDir, SUMMARY_FILE))))) {
+			summary.println(SUMMARY_HEADER);
+			// rows come out in input order whichever board finishes first
+			List<Future<String>> rows = pool.invokeAll(jobs);
+			for (int i = 0; i < rows.size(); i++) {
+				try {
+					summary.println(rows.get(i).get());
+				} catch (ExecutionException e) {
+					summary.println(failedRow(boards.get(i), resultFiles.get(i), e.getCause()));
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return solved.get();
+	}
+
+	/**
+	 * @param board     board file
+	 * @param usedNames result file names already taken in this batch
+	 * @return unused results file name based on the board's name
+	 */
+	private static String resultName(File board, HashSet<String> usedNames) {
+		String name = board.getName();
+		for (String suffix : BOARD_SUFFIXES) {
+			if (name.endsWith(suffix)) {
+				name = name.substring(0, name.length() - suffix.length());
+			}
+		}
+		String candidate = name + ".out";
+		for (int copy = 2; !usedNames.add(candidate); copy++) {
+			candidate = name + "-" + copy + ".out";
+		}
+		return candidate;
+	}
+
+	/**
+	 * Read, search and write the results of one board. Errors with the board
+	 * itself are written to its results file just as CircuitTracer prints
+	 * them, so one bad board never stops the batch.
+	 * 
+	 * @param boardFile board to solve
+	 * @param results   file to write the paths to
+	 * @return summary line for the board
+	 * @throws IOException if the results file cannot be written
+	 */
+	private String solve(File boardFile, File results) throws IOException {
+		String status = "ok";
+		CircuitBoard board = null;
+		SolverResult result = null;
+		SearchMetrics metrics = new SearchMetrics();
+
+		try (PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(results), 1 << 16))) {
+			metrics.startPhase(SearchMetrics.Phase.parse);
+			try {
+				board = CircuitTracer.loadBoard(boardFile.getPath());
+			} catch (FileNotFoundException e) {
+				out.println(e + " File was not found.");
+				status = "not found";
+			} catch (InvalidFileFormatException e) {
+				out.println(e + " File is not in the correct format.");
+				status = "invalid format";
+			}
+
+			if (board != null) {
+				result = solver.solve(board, solver.getOptions().newBudget(), metrics);
+
+				metrics.startPhase(SearchMetrics.Phase.output);
+				result.writeTo(out);
+				if (result.isPartial()) {
+					out.println(CircuitTracer.partialNote(result.stoppedBy()));
+					status = "partial";
+				}
+				out.flush();
+				solved.incrementAndGet();
+			}
+			metrics.endPhase();
+		}
+
+		StringBuilder line = new StringBuilder();
+		line.append(csv(boardFile.getPath())).append(',').append(csv(results.getName())).append(',');
+		line.append(status).append(',');
+		line.append(board == null ? "" : board.numRows()).append(',');
+		line.append(board == null ? "" : board.numCols()).append(',');
+		for (SearchMetrics.Phase phase : SearchMetrics.Phase.values()) {
+			line.append(SearchMetrics.millis(metrics.nanos(phase))).append(',');
+		}
+		line.append(metrics.report(SearchMetrics.Counter.statesCreated)).append(',');
+		line.append(metrics.report(SearchMetrics.Counter.statesRetrieved)).append(',');
+		line.append(metrics.report(SearchMetrics.Counter.peakFrontier)).append(',');
+		line.append(metrics.bytesAllocated()).append(',');
+		line.append(result == null || result.pathLength() == 0 ? "" : result.pathLength()).append(',');
+		line.append(result == null ? "" : result.pathCount()).append(',');
+		line.append(result == null || !result.isPartial() ? "" : result.stoppedBy());
+		return line.toString();
+	}
+
+	/**
+	 * @param boardFile board whose job failed
+	 * @param results   results file of the board
+	 * @param cause     what the job threw
+	 * @return summary line for the board with only its names and status filled
+	 */
+	private static String failedRow(File boardFile, File results, Throwable cause) {
+		StringBuilder line = new StringBuilder();
+		line.append(csv(boardFile.getPath())).append(',').append(csv(results.getName())).append(',');
+		line.append(csv("failed: " + cause));
+		// one empty field for each column after status
+		for (int column = 3; column < SUMMARY_HEADER.split(",").length; column++) {
+			line.append(',');
+		}
+		return line.toString();
+	}
+
+	/**
+	 * @param value text for one CSV field
+	 * @return value, quoted if it holds a comma, quote or line break
+	 */
+	private static String csv(String value) {
+		if (value.indexOf(',') == -1 && value.indexOf('"') == -1 && value.indexOf('\n') == -1) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+} // class BatchTracer
@@ -0,0 +1,216 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Bidirectional breadth-first search for all shortest traces. One queue
+ * Storage grows TraceStates out from '1' and a second grows them out from
+ * '2', always extending whichever frontier is smaller by one full layer.
+ * The search stops as soon as the frontiers share a cell, so each side only
+ * has to cover about half of the best length.
+ *
+ * Like PackedSearch, a side only keeps a state whose length matches the BFS
+ * distance of its last cell. When the frontiers first meet, every shortest
+ * trace passes through exactly one cell sitting on both frontiers, so joining
+ * each forward state with each backward state ending on the same cell gives
+ * every shortest trace once, and only those.
+ *
+ * When one shortest trace is enough, a side keeps only the first state to
+ * reach each cell, so neither frontier holds more states than there are
+ * cells, and only the first matching pair is joined.
+ *
+ * @author Kyle Truschel
+ */
+public class BidirectionalSearch {
+	/** view of the board shared by every state of both sides */
+	private final OverlayBoard view;
+	private final BoardGrid grid;
+	/** BFS distance from '1' of each cell reached by the forward side */
+	private final int[] distForward;
+	/** BFS distance from '2' of each cell reached by the backward side */
+	private final int[] distBackward;
+	/** true to keep one state per cell and join one trace */
+	private final boolean firstOnly;
+	/** frontier states grown from '1' */
+	private final Storage<TraceState> forward = Storage.getQueueInstance();
+	/** frontier states grown from '2' */
+	private final Storage<TraceState> backward = Storage.getQueueInstance();
+	/** number of TraceStates created by both sides */
+	private int statesCreated;
+	/** number of TraceStates retrieved from both sides */
+	private int statesRetrieved;
+	/** shortest traces found */
+	private final ArrayList<TraceState> bestPaths = new ArrayList<TraceState>();
+
+	/**
+	 * Run the search for all shortest traces on the given board.
+	 *
+	 * @param board board to search, not modified
+	 */
+	public BidirectionalSearch(CircuitBoard board) {
+		this(board, false);
+	}
+
+	/**
+	 * Run the search on the given board.
+	 *
+	 * @param board     board to search, not modified
+	 * @param firstOnly true to stop at the first shortest trace
+	 */
+	public BidirectionalSearch(CircuitBoard board, boolean firstOnly) {
+		this.firstOnly = firstOnly;
+		view = new OverlayBoard(board);
+		grid = new BoardGrid(board);
+		distForward = new int[grid.cellCount()];
+		distBackward = new int[grid.cellCount()];
+		Arrays.fill(distForward, -1);
+		Arrays.fill(distBackward, -1);
+		search();
+	}
+
+	/** Grow both frontiers until they meet, then join them. */
+	private void search() {
+		boolean met = seed(forward, distForward, distBackward, grid.startCell());
+		met = seed(backward, distBackward, distForward, grid.endCell()) || met;
+		int forwardDepth = 1;
+		int backwardDepth = 1;
+		while (!met && !forward.isEmpty() && !backward.isEmpty()) {
+			if (forward.size() <= backward.size()) {
+				met = expandLayer(forward, distForward, distBackward, forwardDepth);
+				forwardDepth++;
+			} else {
+				met = expandLayer(backward, distBackward, distForward, backwardDepth);
+				backwardDepth++;
+			}
+		}
+		if (met) {
+			join();
+		}
+	}
+
+	/**
+	 * Store an initial state for each open cell next to a component.
+	 *
+	 * @param side      frontier to seed
+	 * @param dist      distances for this side
+	 * @param otherDist distances for the other side
+	 * @param component cell index of '1' or '2'
+	 * @return true if a seeded cell was already reached by the other side
+	 */
+	private boolean seed(Storage<TraceState> side, int[] dist, int[] otherDist, int component) {
+		boolean met = false;
+		for (int cell : grid.openNeighbors(component)) {
+			dist[cell] = 1;
+			side.store(new TraceState(view, grid.row(cell), grid.col(cell)));
+			statesCreated++;
+			met = met || otherDist[cell] != -1;
+		}
+		return met;
+	}
+
+	/**
+	 * Replace the frontier states of one side by all of their extensions
+	 * onto cells first reached at the next distance, or by one extension
+	 * per cell if only one trace is wanted.
+	 *
+	 * @param side      frontier to expand, holding states of length depth
+	 * @param dist      distances for this side
+	 * @param otherDist distances for the other side
+	 * @param depth     length of the states currently in the frontier
+	 * @return true if a new cell was already reached by the other side
+	 */
+	private boolean expandLayer(Storage<TraceState> side, int[] dist, int[] otherDist, int depth) {
+		boolean met = false;
+		int layerSize = side.size();
+		for (int i = 0; i < layerSize; i++) {
+			TraceState state = side.retrieve();
+			statesRetrieved++;
+			int cell = state.getRow() * grid.numCols() + state.getCol();
+			for (int direction = 0; direction < BoardGrid.DIRECTIONS; direction++) {
+				int next = grid.openNeighbor(cell, direction);
+				if (next == -1) {
+					continue;
+				}
+				boolean firstVisit = dist[next] == -1;
+				if (firstVisit) {
+					dist[next] = depth + 1;
+				}
+				if (firstVisit || (!firstOnly && dist[next] == depth + 1)) {
+					side.store(new TraceState(state, grid.row(next), grid.col(next)));
+					statesCreated++;
+					met = met || otherDist[next] != -1;
+				}
+			}
+		}
+		return met;
+	}
+
+	/**
+	 * Combine forward and backward frontier states that end on the same
+	 * cell into complete traces.
+	 */
+	private void join() {
+		HashMap<Integer, ArrayList<TraceState>> backwardByCell = new HashMap<Integer, ArrayList<TraceState>>();
+		while (!backward.isEmpty()) {
+			TraceState state = backward.retrieve();
+			statesRetrieved++;
+			int cell = state.getRow() * grid.numCols() + state.getCol();
+			ArrayList<TraceState> states = backwardByCell.get(cell);
+			if (states == null) {
+				states = new ArrayList<TraceState>();
+				backwardByCell.put(cell, states);
+			}
+			states.add(state);
+		}
+		while (!forward.isEmpty()) {
+			TraceState state = forward.retrieve();
+			statesRetrieved++;
+			ArrayList<TraceState> matches = backwardByCell.get(state.getRow() * grid.numCols() + state.getCol());
+			if (matches == null) {
+				continue;
+			}
+			ArrayList<Point> head = state.getPath();
+			for (TraceState match : matches) {
+				ArrayList<Point> points = new ArrayList<Point>(head);
+				ArrayList<Point> tail = match.getPath();
+				// the shared cell is already the last point of head
+				for (int i = tail.size() - 2; i >= 0; i--) {
+					points.add(tail.get(i));
+				}
+				bestPaths.add(new TraceState(view, points));
+				if (firstOnly) {
+					return;
+				}
+			}
+		}
+	}
+
+	/** @return number of TraceStates created while searching */
+	public int statesCreated() {
+		return statesCreated;
+	}
+
+	/** @return number of TraceStates retrieved while searching and joining */
+	public int statesRetrieved() {
+		return statesRetrieved;
+	}
+
+	/** @return peak sizes of the two frontier Storages added together */
+	public int peakFrontier() {
+		return forward.peakSize() + backward.peakSize();
+	}
+
+	/** @return number of times either frontier Storage grew its array */
+	public int resizeCount() {
+		return forward.resizeCount() + backward.resizeCount();
+	}
+
+	/**
+	 * @return all shortest traces, or only the first if one was wanted; empty
+	 *         if the components cannot be connected
+	 */
+	public ArrayList<TraceState> getBestPaths() {
+		return new ArrayList<TraceState>(bestPaths);
+	}
+} // class BidirectionalSearch
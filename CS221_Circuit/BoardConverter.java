@@ -0,0 +1,128 @@
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts board files between the .dat format read by CircuitBoard, the
+ * dense text format of DenseBoardFormat and the run-length binary format of
+ * RunLengthBoardFormat, and tells which format a file is in from its first
+ * bytes, so every reader of boards can accept all three.
+ * 
+ * java BoardConverter dat|dense|rle infile outfile
+ * 
+ * @author Kyle Truschel
+ */
+public class BoardConverter {
+	/** board file formats */
+	public static enum Format {
+		dat, dense, rle
+	}
+
+	/**
+	 * Convert one board file to another format.
+	 * 
+	 * @param args format to write, input file in any format, output file
+	 */
+	public static void main(String[] args) {
+		Format format;
+		try {
+			if (args.length != 3) {
+				throw new IllegalArgumentException("expected three arguments");
+			}
+			format = Format.valueOf(args[0]);
+		} catch (IllegalArgumentException e) {
+			System.out.println("Usage: java BoardConverter dat|dense|rle infile outfile");
+			return;
+		}
+
+		try {
+			long started = System.nanoTime();
+			CircuitBoard board = CircuitTracer.loadBoard(args[1]);
+			write(board, format, new File(args[2]));
+			System.out.printf("Converted %s (%s, %d bytes) to %s (%s, %d bytes) in %.1f ms%n", args[1],
+					detect(new File(args[1])), new File(args[1]).length(), args[2], format,
+					new File(args[2]).length(), (System.nanoTime() - started) / 1e6);
+		} catch (FileNotFoundException e) {
+			System.out.println(e.getMessage());
+		} catch (InvalidFileFormatException e) {
+			System.out.println(e.toString());
+		} catch (IOException e) {
+			System.out.println(e + " Board could not be written.");
+		}
+	}
+
+	/**
+	 * Tell the format of a board file from its first bytes. Anything that is
+	 * neither a dense nor a run-length file is taken to be a .dat file.
+	 * 
+	 * @param file board file
+	 * @return format of the file
+	 * @throws FileNotFoundException if the file cannot be opened or read
+	 */
+	public static Format detect(File file) throws FileNotFoundException {
+		byte[] head = new byte[Math.max(RunLengthBoardFormat.MAGIC.length, DenseBoardFormat.MAGIC.length())];
+		int count = 0;
+		try (InputStream in = new FileInputStream(file)) {
+			for (int read = 0; read != -1 && count < head.length; read = in.read(head, count, head.length - count)) {
+				count += read;
+			}
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new FileNotFoundException(file + " (" + e.getClass().getSimpleName() + ")");
+		}
+		if (startsWith(head, count, RunLengthBoardFormat.MAGIC)) {
+			return Format.rle;
+		}
+		if (startsWith(head, count, DenseBoardFormat.MAGIC.getBytes(StandardCharsets.US_ASCII))) {
+			return Format.dense;
+		}
+		return Format.dat;
+	}
+
+	/**
+	 * @param head   first bytes of a file
+	 * @param count  number of bytes of head that were read
+	 * @param prefix bytes to look for
+	 * @return true if head begins with prefix
+	 */
+	private static boolean startsWith(byte[] head, int count, byte[] prefix) {
+		if (count < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (head[i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Write a board to a file in the given format.
+	 * 
+	 * @param board  board to write
+	 * @param format format to write it in
+	 * @param file   file to write, replaced if it exists
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(CircuitBoard board, Format format, File file) throws IOException {
+		if (format == Format.dat) {
+			BoardGenerator.write(board, file);
+			return;
+		}
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+			if (format == Format.dense) {
+				DenseBoardFormat.write(board, out);
+			} else {
+				RunLengthBoardFormat.write(board, out);
+			}
+		}
+	}
+} // class BoardConverter
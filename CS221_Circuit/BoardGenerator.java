@@ -0,0 +1,253 @@
+import java.awt.Point;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Writes valid CircuitBoard files of any size for scale testing. The same
+ * size, density, seed and topology always give the same board, and every
+ * board has a path from '1' to '2', whose shortest length is found with a
+ * BFS of the generated board and reported with it.
+ * 
+ * Topologies:
+ * random - a random staircase of open positions from '1' in the top left
+ * corner to '2' in the bottom right corner, with every other position
+ * closed with probability density
+ * maze - a perfect maze on the even rows and columns, so there is exactly
+ * one path; density is not used
+ * corridor - a single corridor along the top row and down the right column,
+ * walled off from an interior closed with probability density; exhaustive
+ * searches stay fast on it at any size
+ * 
+ * @author Kyle Truschel
+ */
+public class BoardGenerator {
+	/** kinds of board that can be generated */
+	public static enum Topology {
+		random, maze, corridor
+	}
+
+	private final int rows;
+	private final int cols;
+	private final double density;
+	private final Random random;
+
+	/**
+	 * @param rows    number of rows, at least 2
+	 * @param cols    number of columns, at least 2
+	 * @param density chance of each free position being closed, 0 to 1
+	 * @param seed    seed for the random choices
+	 * @throws IllegalArgumentException if a size or the density is out of range
+	 */
+	public BoardGenerator(int rows, int cols, double density, long seed) {
+		if (rows < 2 || cols < 2 || (long) rows * cols > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("board must be at least 2x2 and at most " + Integer.MAX_VALUE
+					+ " positions");
+		}
+		if (!(density >= 0 && density <= 1)) {
+			throw new IllegalArgumentException("density must be between 0 and 1");
+		}
+		this.rows = rows;
+		this.cols = cols;
+		this.density = density;
+		random = new Random(seed);
+	}
+
+	/**
+	 * Generate a board from a file name and options.
+	 * 
+	 * @param args [-t random|maze|corridor] [-d density] [-r seed] rows cols
+	 *             filename
+	 */
+	public static void main(String[] args) {
+		Topology topology = Topology.random;
+		double density = 0.3;
+		long seed = 1;
+		int rows;
+		int cols;
+		String filename;
+		try {
+			int i = 0;
+			for (; i < args.length - 3; i += 2) {
+				switch (args[i]) {
+					case "-t":
+						topology = Topology.valueOf(args[i + 1]);
+						break;
+					case "-d":
+						density = Double.parseDouble(args[i + 1]);
+						break;
+					case "-r":
+						seed = Long.parseLong(args[i + 1]);
+						break;
+					default:
+						throw new IllegalArgumentException(args[i]);
+				}
+			}
+			if (i != args.length - 3) {
+				throw new IllegalArgumentException("missing size or file name");
+			}
+			rows = Integer.parseInt(args[i]);
+			cols = Integer.parseInt(args[i + 1]);
+			filename = args[i + 2];
+		} catch (IllegalArgumentException e) {
+			System.out.println("Usage: java BoardGenerator [-t random|maze|corridor] [-d density] [-r seed] "
+					+ "rows cols filename");
+			return;
+		}
+
+		try {
+			BoardGenerator generator = new BoardGenerator(rows, cols, density, seed);
+			CircuitBoard board = generator.generate(topology);
+			write(board, new File(filename));
+			System.out.println("Wrote " + filename + ": " + rows + " x " + cols + " " + topology + " board, seed "
+					+ seed);
+			System.out.println("Shortest path length: " + new BoardGrid(board).shortestPathLength());
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+		} catch (IOException e) {
+			System.out.println(e + " Board could not be written.");
+		}
+	}
+
+	/**
+	 * @param topology kind of board to generate
+	 * @return new board with a path from '1' to '2'
+	 * @throws IllegalArgumentException if the board is too small for a maze
+	 */
+	public CircuitBoard generate(Topology topology) {
+		byte[] cells = new byte[rows * cols];
+		Point start = new Point(0, 0);
+		Point end = new Point(rows - 1, cols - 1);
+		switch (topology) {
+			case maze:
+				if (rows < 3 && cols < 3) {
+					throw new IllegalArgumentException("a maze needs at least 3 rows or 3 columns");
+				}
+				// rooms sit on even rows and columns, so the last room may be short of the corner
+				end = new Point((rows - 1) / 2 * 2, (cols - 1) / 2 * 2);
+				fillMaze(cells);
+				break;
+			case corridor:
+				fillCorridor(cells);
+				break;
+			default:
+				fillRandom(cells);
+				break;
+		}
+		cells[start.x * cols + start.y] = '1';
+		cells[end.x * cols + end.y] = '2';
+		return new CircuitBoard(rows, cols, cells, start, end);
+	}
+
+	/**
+	 * Open a random staircase from the top left to the bottom right corner,
+	 * then close each other position with probability density.
+	 * 
+	 * @param cells row-major board to fill
+	 */
+	private void fillRandom(byte[] cells) {
+		for (int cell = 0; cell < cells.length; cell++) {
+			cells[cell] = random.nextDouble() < density ? (byte) 'X' : (byte) 'O';
+		}
+		int row = 0;
+		int col = 0;
+		while (row < rows - 1 || col < cols - 1) {
+			if (col == cols - 1 || (row < rows - 1 && random.nextBoolean())) {
+				row++;
+			} else {
+				col++;
+			}
+			cells[row * cols + col] = 'O';
+		}
+	}
+
+	/**
+	 * Carve a perfect maze with a randomized depth-first search. Rooms are
+	 * the positions with even row and column, and a wall between two rooms is
+	 * opened when the search moves from one to the other.
+	 * 
+	 * @param cells row-major board to fill
+	 */
+	private void fillMaze(byte[] cells) {
+		for (int cell = 0; cell < cells.length; cell++) {
+			cells[cell] = 'X';
+		}
+		int[] stack = new int[((rows + 1) / 2) * ((cols + 1) / 2)];
+		int top = 0;
+		stack[top++] = 0;
+		cells[0] = 'O';
+		int[] choices = new int[BoardGrid.DIRECTIONS];
+		while (top > 0) {
+			int room = stack[top - 1];
+			int row = room / cols;
+			int col = room % cols;
+			int count = 0;
+			for (int direction = 0; direction < BoardGrid.DIRECTIONS; direction++) {
+				int nextRow = row + 2 * BoardGrid.ROW_STEPS[direction];
+				int nextCol = col + 2 * BoardGrid.COL_STEPS[direction];
+				if (nextRow >= 0 && nextRow < rows && nextCol >= 0 && nextCol < cols
+						&& cells[nextRow * cols + nextCol] == 'X') {
+					choices[count++] = direction;
+				}
+			}
+			if (count == 0) {
+				top--;
+				continue;
+			}
+			int direction = choices[random.nextInt(count)];
+			cells[(row + BoardGrid.ROW_STEPS[direction]) * cols + col + BoardGrid.COL_STEPS[direction]] = 'O';
+			int next = (row + 2 * BoardGrid.ROW_STEPS[direction]) * cols + col + 2 * BoardGrid.COL_STEPS[direction];
+			cells[next] = 'O';
+			stack[top++] = next;
+		}
+	}
+
+	/**
+	 * Open the top row and right column, close the row and column next to
+	 * them, and close each remaining position with probability density.
+	 * 
+	 * @param cells row-major board to fill
+	 */
+	private void fillCorridor(byte[] cells) {
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				byte value;
+				if (row == 0 || col == cols - 1) {
+					value = 'O';
+				} else if (row == 1 || col == cols - 2) {
+					value = 'X';
+				} else {
+					value = random.nextDouble() < density ? (byte) 'X' : (byte) 'O';
+				}
+				cells[row * cols + col] = value;
+			}
+		}
+	}
+
+	/**
+	 * Write a board in the format read by CircuitBoard(String).
+	 * 
+	 * @param board board to write
+	 * @param file  file to write it to
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(CircuitBoard board, File file) throws IOException {
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+			out.println(board.numRows() + " " + board.numCols());
+			char[] line = new char[2 * board.numCols()];
+			for (int row = 0; row < board.numRows(); row++) {
+				for (int col = 0; col < board.numCols(); col++) {
+					line[2 * col] = board.charAt(row, col);
+					line[2 * col + 1] = ' ';
+				}
+				out.println(line);
+			}
+			if (out.checkError()) {
+				throw new IOException(file + " could not be written");
+			}
+		}
+	}
+} // class BoardGenerator
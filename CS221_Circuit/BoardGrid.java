@@ -0,0 +1,231 @@
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Read-only, flat snapshot of a CircuitBoard for the search engines that
+ * work on cell indices instead of TraceStates. Cell (row, col) has index
+ * row * numCols() + col, and the open cells are packed into a BitSet.
+ * 
+ * @author Kyle Truschel
+ */
+public class BoardGrid {
+	/** row and column offsets of the four neighbors of a cell */
+	public static final int[] ROW_STEPS = { 1, -1, 0, 0 };
+	public static final int[] COL_STEPS = { 0, 0, 1, -1 };
+	/** number of neighbor directions */
+	public static final int DIRECTIONS = 4;
+
+	private final int rows;
+	private final int cols;
+	/** open cells, indexed by row * cols + col */
+	private final BitSet open;
+	/** cell index of '1' */
+	private final int startCell;
+	/** cell index of '2' */
+	private final int endCell;
+
+	/**
+	 * Snapshot the open cells of the given board.
+	 * 
+	 * @param board board to copy, not modified
+	 */
+	public BoardGrid(CircuitBoard board) {
+		rows = board.numRows();
+		cols = board.numCols();
+		open = new BitSet(rows * cols);
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				if (board.isOpen(row, col)) {
+					open.set(row * cols + col);
+				}
+			}
+		}
+		Point start = board.getStartingPoint();
+		Point end = board.getEndingPoint();
+		startCell = start.x * cols + start.y;
+		endCell = end.x * cols + end.y;
+	}
+
+	/**
+	 * Wrap already computed open cells, as kept up to date by
+	 * IncrementalTracer. The grid takes ownership of open.
+	 * 
+	 * @param rows      number of rows
+	 * @param cols      number of columns
+	 * @param open      open cells, indexed by row * cols + col
+	 * @param startCell cell index of '1'
+	 * @param endCell   cell index of '2'
+	 */
+	BoardGrid(int rows, int cols, BitSet open, int startCell, int endCell) {
+		this.rows = rows;
+		this.cols = cols;
+		this.open = open;
+		this.startCell = startCell;
+		this.endCell = endCell;
+	}
+
+	/** @return number of rows */
+	public int numRows() {
+		return rows;
+	}
+
+	/** @return number of columns */
+	public int numCols() {
+		return cols;
+	}
+
+	/** @return number of cells on the board */
+	public int cellCount() {
+		return rows * cols;
+	}
+
+	/** @return cell index of the starting component */
+	public int startCell() {
+		return startCell;
+	}
+
+	/** @return cell index of the ending component */
+	public int endCell() {
+		return endCell;
+	}
+
+	/**
+	 * @param cell cell index
+	 * @return row of the cell
+	 */
+	public int row(int cell) {
+		return cell / cols;
+	}
+
+	/**
+	 * @param cell cell index
+	 * @return column of the cell
+	 */
+	public int col(int cell) {
+		return cell % cols;
+	}
+
+	/**
+	 * @param row row coordinate
+	 * @param col col coordinate
+	 * @return true if (row, col) is on the board and open
+	 */
+	public boolean isOpen(int row, int col) {
+		if (row < 0 || row >= rows || col < 0 || col >= cols) {
+			return false;
+		}
+		return open.get(row * cols + col);
+	}
+
+	/**
+	 * @param cell cell index
+	 * @return true if the cell is open
+	 */
+	public boolean isOpen(int cell) {
+		return open.get(cell);
+	}
+
+	/**
+	 * @param cell      cell index
+	 * @param direction index into ROW_STEPS and COL_STEPS
+	 * @return index of the neighboring cell, or -1 if it is off the board
+	 */
+	public int neighbor(int cell, int direction) {
+		int row = cell / cols + ROW_STEPS[direction];
+		int col = cell % cols + COL_STEPS[direction];
+		if (row < 0 || row >= rows || col < 0 || col >= cols) {
+			return -1;
+		}
+		return row * cols + col;
+	}
+
+	/**
+	 * @param cell      cell index
+	 * @param direction index into ROW_STEPS and COL_STEPS
+	 * @return index of the neighboring cell if it is open, else -1
+	 */
+	public int openNeighbor(int cell, int direction) {
+		int next = neighbor(cell, direction);
+		if (next == -1 || !open.get(next)) {
+			return -1;
+		}
+		return next;
+	}
+
+	/**
+	 * @param cell cell index
+	 * @return open cells next to the given cell, in direction order
+	 */
+	public int[] openNeighbors(int cell) {
+		int[] found = new int[DIRECTIONS];
+		int count = 0;
+		for (int i = 0; i < DIRECTIONS; i++) {
+			int next = openNeighbor(cell, i);
+			if (next != -1) {
+				found[count++] = next;
+			}
+		}
+		int[] result = new int[count];
+		System.arraycopy(found, 0, result, 0, count);
+		return result;
+	}
+
+	/**
+	 * Breadth-first distances through open cells from the given seed cells.
+	 * Seeds are at distance 1, matching TraceState.pathLength() for a path
+	 * that starts on a seed.
+	 * 
+	 * @param seeds open cells to start from
+	 * @return distance of every cell, -1 for closed or unreachable cells
+	 */
+	public int[] distancesFrom(int[] seeds) {
+		int[] dist = new int[rows * cols];
+		Arrays.fill(dist, -1);
+		int[] queue = new int[rows * cols];
+		int head = 0;
+		int tail = 0;
+		for (int seed : seeds) {
+			if (dist[seed] == -1) {
+				dist[seed] = 1;
+				queue[tail++] = seed;
+			}
+		}
+		while (head < tail) {
+			int cell = queue[head++];
+			for (int i = 0; i < DIRECTIONS; i++) {
+				int next = openNeighbor(cell, i);
+				if (next != -1 && dist[next] == -1) {
+					dist[next] = dist[cell] + 1;
+					queue[tail++] = next;
+				}
+			}
+		}
+		return dist;
+	}
+
+	/**
+	 * Length of a shortest trace from one BFS out of the starting component,
+	 * without finding the traces themselves.
+	 * 
+	 * @return number of traces in a shortest path, 0 if the components cannot be connected
+	 */
+	public int shortestPathLength() {
+		int[] dist = distancesFrom(openNeighbors(startCell));
+		int best = 0;
+		for (int cell : openNeighbors(endCell)) {
+			if (dist[cell] != -1 && (best == 0 || dist[cell] < best)) {
+				best = dist[cell];
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @param cell cell index
+	 * @return the cell as a row, column Point
+	 */
+	public Point toPoint(int cell) {
+		return new Point(cell / cols, cell % cols);
+	}
+} // class BoardGrid
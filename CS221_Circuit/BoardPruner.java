@@ -0,0 +1,136 @@
+import java.util.BitSet;
+
+/**
+ * Finds the open positions of a CircuitBoard that no trace from '1' to '2'
+ * can ever use, before any TraceState is created, so the exhaustive
+ * searches never wander into them. A position is pruned when
+ * 
+ * - it cannot be reached from the cells next to '2' or from the cells next
+ * to '1', found with one BFS flood from each side, or
+ * - it is a dead end: at most one usable neighbor and not next to '1' or
+ * '2'. A trace passing through a position needs two neighbors, so dead ends
+ * are filled in one after another until none are left, which empties whole
+ * dead-end corridors and pockets.
+ * 
+ * The pruned positions are kept in a mask of their own. Only the view the
+ * searches start from treats them as closed; the board itself and every
+ * board printed for a solution are unchanged. When the floods from the two
+ * sides never meet there is no trace at all, and hasPath() says so before
+ * searching.
+ * 
+ * @author Kyle Truschel
+ */
+public class BoardPruner {
+	private final CircuitBoard board;
+	/** open positions no trace can use */
+	private final BitSet pruned;
+	/** true if some trace connects '1' to '2' */
+	private final boolean hasPath;
+
+	/**
+	 * Find the positions to prune on the given board.
+	 * 
+	 * @param board board to search, not modified
+	 */
+	public BoardPruner(CircuitBoard board) {
+		this.board = board;
+		BoardGrid grid = new BoardGrid(board);
+		int[] fromStart = grid.distancesFrom(grid.openNeighbors(grid.startCell()));
+		int[] fromEnd = grid.distancesFrom(grid.openNeighbors(grid.endCell()));
+		pruned = new BitSet(grid.cellCount());
+		int[] degree = new int[grid.cellCount()];
+		for (int cell = 0; cell < grid.cellCount(); cell++) {
+			if (grid.isOpen(cell) && (fromStart[cell] == -1 || fromEnd[cell] == -1)) {
+				pruned.set(cell);
+			}
+		}
+
+		// cells next to '1' or '2' can end a trace and are never dead ends
+		BitSet keep = new BitSet(grid.cellCount());
+		boolean connected = false;
+		for (int cell : grid.openNeighbors(grid.startCell())) {
+			keep.set(cell);
+			connected |= fromEnd[cell] != -1;
+		}
+		for (int cell : grid.openNeighbors(grid.endCell())) {
+			keep.set(cell);
+		}
+		hasPath = connected;
+
+		int[] stack = new int[grid.cellCount()];
+		int top = 0;
+		for (int cell = 0; cell < grid.cellCount(); cell++) {
+			if (!usable(grid, cell)) {
+				continue;
+			}
+			degree[cell] = usableNeighbors(grid, cell);
+			if (degree[cell] <= 1 && !keep.get(cell)) {
+				stack[top++] = cell;
+			}
+		}
+		while (top > 0) {
+			int cell = stack[--top];
+			pruned.set(cell);
+			for (int direction = 0; direction < BoardGrid.DIRECTIONS; direction++) {
+				int next = grid.openNeighbor(cell, direction);
+				// a neighbor dropping to one usable neighbor is queued exactly once
+				if (next != -1 && !pruned.get(next) && --degree[next] == 1 && !keep.get(next)) {
+					stack[top++] = next;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param grid flat copy of the board
+	 * @param cell cell index
+	 * @return true if the cell is open and not pruned yet
+	 */
+	private boolean usable(BoardGrid grid, int cell) {
+		return grid.isOpen(cell) && !pruned.get(cell);
+	}
+
+	/**
+	 * @param grid flat copy of the board
+	 * @param cell cell index
+	 * @return number of usable cells next to the cell
+	 */
+	private int usableNeighbors(BoardGrid grid, int cell) {
+		int count = 0;
+		for (int direction = 0; direction < BoardGrid.DIRECTIONS; direction++) {
+			int next = grid.openNeighbor(cell, direction);
+			if (next != -1 && !pruned.get(next)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/** @return true if some trace connects '1' to '2' */
+	public boolean hasPath() {
+		return hasPath;
+	}
+
+	/** @return number of open positions pruned */
+	public int prunedCount() {
+		return pruned.cardinality();
+	}
+
+	/**
+	 * @param row row coordinate
+	 * @param col col coordinate
+	 * @return true if the position is open but no trace can use it
+	 */
+	public boolean isPruned(int row, int col) {
+		return row >= 0 && row < board.numRows() && col >= 0 && col < board.numCols()
+				&& pruned.get(row * board.numCols() + col);
+	}
+
+	/**
+	 * @return view of the board in which the pruned positions are not open,
+	 *         for the first TraceStates of a search to be built on
+	 */
+	public OverlayBoard startingView() {
+		return new OverlayBoard(board, pruned);
+	}
+} // class BoardPruner
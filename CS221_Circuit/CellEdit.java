@@ -0,0 +1,55 @@
+/**
+ * One position of a board set to 'O' or 'X', as applied by
+ * IncrementalTracer.applyEdits.
+ * 
+ * @author Kyle Truschel
+ */
+public class CellEdit {
+	private final int row;
+	private final int col;
+	private final char value;
+
+	/**
+	 * @param row   row coordinate
+	 * @param col   col coordinate
+	 * @param value 'O' to open the position or 'X' to close it
+	 * @throws IllegalArgumentException if value is not 'O' or 'X'
+	 */
+	public CellEdit(int row, int col, char value) {
+		if (value != 'O' && value != 'X') {
+			throw new IllegalArgumentException("a position can only be set to 'O' or 'X', not '" + value + "'");
+		}
+		this.row = row;
+		this.col = col;
+		this.value = value;
+	}
+
+	/** @return row coordinate */
+	public int getRow() {
+		return row;
+	}
+
+	/** @return col coordinate */
+	public int getCol() {
+		return col;
+	}
+
+	/** @return 'O' or 'X' */
+	public char getValue() {
+		return value;
+	}
+
+	/** @return true if the edit opens the position */
+	public boolean isOpen() {
+		return value == 'O';
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return "(" + row + ", " + col + ") = " + value;
+	}
+} // class CellEdit
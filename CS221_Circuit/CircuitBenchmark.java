@@ -0,0 +1,250 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark harness for CircuitBoard parsing and copying, TraceState
+ * expansion and full -s and -q searches. Every benchmark runs on the
+ * boards/valid*.dat files and on synthetic boards of 10x10, 100x100 and
+ * 1000x1000 positions.
+ * 
+ * Each benchmark and board pair is run the way a JMH harness would run it:
+ * a number of warmup iterations whose results are thrown away so the JIT
+ * has compiled the code under test, then measured iterations. Each
+ * iteration calls the operation over and over for a fixed time and reports
+ * the average time per call. Results are fed to a sink so the JIT cannot
+ * remove the work.
+ * 
+ * The synthetic boards come from BoardGenerator. The 10x10 board is random
+ * and the 100x100 board is a maze, so both make the search branch and
+ * backtrack, yet an exhaustive -s or -q search still finishes. The
+ * 1000x1000 board is a corridor with exactly one path, since no branching
+ * board that large can be searched exhaustively.
+ * 
+ * @author Kyle Truschel
+ */
+public class CircuitBenchmark {
+	/** sides of the synthetic boards */
+	private static final int[] SYNTHETIC_SIZES = { 10, 100, 1000 };
+	/** topology of the synthetic board of the same index */
+	private static final BoardGenerator.Topology[] SYNTHETIC_TOPOLOGIES = { BoardGenerator.Topology.random,
+			BoardGenerator.Topology.maze, BoardGenerator.Topology.corridor };
+	/** share of closed positions on the random synthetic board */
+	private static final double SYNTHETIC_DENSITY = 0.4;
+	private static final CircuitSolver STACK_SOLVER = new CircuitSolver(
+			SolverOptions.defaults().withStrategy(SolverOptions.Strategy.stack));
+	private static final CircuitSolver QUEUE_SOLVER = new CircuitSolver(SolverOptions.defaults());
+
+	private final int warmupIterations;
+	private final int measuredIterations;
+	private final long iterationNanos;
+	/** keeps results reachable so no benchmark is optimized away */
+	private volatile int sink;
+
+	/**
+	 * @param warmupIterations   iterations run before measuring
+	 * @param measuredIterations iterations measured
+	 * @param iterationMillis    time each iteration runs for
+	 */
+	public CircuitBenchmark(int warmupIterations, int measuredIterations, long iterationMillis) {
+		this.warmupIterations = warmupIterations;
+		this.measuredIterations = measuredIterations;
+		this.iterationNanos = iterationMillis * 1_000_000L;
+	}
+
+	/**
+	 * Run every benchmark.
+	 * 
+	 * @param args optional: -w warmup iterations, -i measured iterations,
+	 *             -t milliseconds per iteration, then the boards directory
+	 *             (boards by default)
+	 */
+	public static void main(String[] args) {
+		int warmup = 3;
+		int measured = 5;
+		long millis = 200;
+		String boardsDir = "boards";
+		try {
+			int i = 0;
+			for (; i < args.length - 1 && args[i].startsWith("-"); i += 2) {
+				int value = Integer.parseInt(args[i + 1]);
+				if (value < 1) {
+					throw new IllegalArgumentException(args[i]);
+				}
+				switch (args[i]) {
+					case "-w":
+						warmup = value;
+						break;
+					case "-i":
+						measured = value;
+						break;
+					case "-t":
+						millis = value;
+						break;
+					default:
+						throw new IllegalArgumentException(args[i]);
+				}
+			}
+			if (i < args.length) {
+				boardsDir = args[i++];
+			}
+			if (i < args.length) {
+				throw new IllegalArgumentException(args[i]);
+			}
+		} catch (IllegalArgumentException e) {
+			System.out.println("Usage: java CircuitBenchmark [-w warmup] [-i iterations] [-t millis] [boardsDir]");
+			return;
+		}
+
+		try {
+			new CircuitBenchmark(warmup, measured, millis).runAll(new File(boardsDir));
+		} catch (IOException e) {
+			System.out.println(e + " Benchmark could not be run.");
+		}
+	}
+
+	/**
+	 * Run every benchmark on every board and print one line per pair.
+	 * 
+	 * @param boardsDir directory holding the valid*.dat boards
+	 * @throws IOException if the synthetic boards cannot be written
+	 */
+	public void runAll(File boardsDir) throws IOException {
+		ArrayList<File> boards = new ArrayList<File>();
+		File[] shipped = boardsDir.listFiles((dir, name) -> name.startsWith("valid") && name.endsWith(".dat"));
+		if (shipped != null) {
+			Arrays.sort(shipped);
+			boards.addAll(Arrays.asList(shipped));
+		}
+		File tempDir = Files.createTempDirectory("circuit-benchmark").toFile();
+		try {
+			for (int i = 0; i < SYNTHETIC_SIZES.length; i++) {
+				int size = SYNTHETIC_SIZES[i];
+				BoardGenerator.Topology topology = SYNTHETIC_TOPOLOGIES[i];
+				File board = new File(tempDir, topology + "" + size + ".dat");
+				BoardGenerator generator = new BoardGenerator(size, size, SYNTHETIC_DENSITY, size);
+				BoardGenerator.write(generator.generate(topology), board);
+				boards.add(board);
+			}
+
+			System.out.println(String.format(Locale.ROOT, "%-10s %-18s %16s %14s %12s", "benchmark", "board",
+					"ns/op", "+/- ns/op", "ops"));
+			for (File file : boards) {
+				CircuitBoard board = new CircuitBoard(file.getPath());
+				TraceState first = firstState(board);
+				String name = file.getName();
+				report("parse", name, () -> parse(file));
+				report("copy", name, () -> new CircuitBoard(board));
+				if (first != null) {
+					report("expand", name, () -> expand(first));
+				}
+				report("search-s", name, () -> STACK_SOLVER.solve(board));
+				report("search-q", name, () -> QUEUE_SOLVER.solve(board));
+			}
+		} finally {
+			for (File file : tempDir.listFiles()) {
+				file.delete();
+			}
+			tempDir.delete();
+		}
+	}
+
+	/**
+	 * Run one benchmark and print its result.
+	 * 
+	 * @param benchmark name of the operation
+	 * @param board     name of the board it runs on
+	 * @param operation work to time, called many times
+	 */
+	private void report(String benchmark, String board, Supplier<Object> operation) {
+		for (int i = 0; i < warmupIterations; i++) {
+			iteration(operation);
+		}
+		double[] nanosPerOp = new double[measuredIterations];
+		long ops = 0;
+		for (int i = 0; i < measuredIterations; i++) {
+			long[] result = iteration(operation);
+			nanosPerOp[i] = (double) result[0] / result[1];
+			ops += result[1];
+		}
+		double mean = 0;
+		for (double value : nanosPerOp) {
+			mean += value / measuredIterations;
+		}
+		double variance = 0;
+		for (double value : nanosPerOp) {
+			variance += (value - mean) * (value - mean) / measuredIterations;
+		}
+		System.out.println(String.format(Locale.ROOT, "%-10s %-18s %16.1f %14.1f %12d", benchmark, board, mean,
+				Math.sqrt(variance), ops));
+	}
+
+	/**
+	 * Call an operation until the iteration time is used up, at least once.
+	 * 
+	 * @param operation work to time
+	 * @return elapsed nanoseconds and number of calls
+	 */
+	private long[] iteration(Supplier<Object> operation) {
+		long start = System.nanoTime();
+		long elapsed;
+		long ops = 0;
+		do {
+			sink ^= System.identityHashCode(operation.get());
+			ops++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < iterationNanos);
+		return new long[] { elapsed, ops };
+	}
+
+	/**
+	 * @param file board file
+	 * @return the parsed board
+	 */
+	private static CircuitBoard parse(File file) {
+		try {
+			return new CircuitBoard(file.getPath());
+		} catch (FileNotFoundException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param board board to search
+	 * @return first TraceState next to '1', or null if '1' is boxed in
+	 */
+	private static TraceState firstState(CircuitBoard board) {
+		int row = board.getStartingPoint().x;
+		int col = board.getStartingPoint().y;
+		for (int direction = 0; direction < BoardGrid.DIRECTIONS; direction++) {
+			if (board.isOpen(row + BoardGrid.ROW_STEPS[direction], col + BoardGrid.COL_STEPS[direction])) {
+				return new TraceState(board, row + BoardGrid.ROW_STEPS[direction], col + BoardGrid.COL_STEPS[direction]);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Create every state one step longer than the given one, as the search
+	 * loops do for each state they retrieve.
+	 * 
+	 * @param state state to expand
+	 * @return last state created, or state if it cannot be extended
+	 */
+	private static TraceState expand(TraceState state) {
+		TraceState next = state;
+		for (int direction = 0; direction < BoardGrid.DIRECTIONS; direction++) {
+			int row = state.getRow() + BoardGrid.ROW_STEPS[direction];
+			int col = state.getCol() + BoardGrid.COL_STEPS[direction];
+			if (state.isOpen(row, col)) {
+				next = new TraceState(state, row, col);
+			}
+		}
+		return next;
+	}
+} // class CircuitBenchmark
@@ -1,6 +1,7 @@
 import java.awt.Point;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
@@ -10,8 +11,11 @@ import java.util.Scanner;
  * @author Kyle Truschel
  */
 public class CircuitBoard {
-	/** current contents of the board */
-	private char[][] board;
+	/**
+	 * current contents of the board, CELL_BITS per position in row-major
+	 * order; positions never straddle two longs
+	 */
+	private long[] board;
 	/** location of row,col for '1' */
 	private Point startingPoint;
 	/** location of row,col for '2' */
@@ -20,12 +24,27 @@ public class CircuitBoard {
 	// constants you may find useful
 	private final int ROWS; // initialized in constructor
 	private final int COLS; // initialized in constructor
-	private final char OPEN = 'O'; // capital 'o', an open position
-	private final char CLOSED = 'X';// a blocked position
-	private final char TRACE = 'T'; // part of the trace connecting 1 to 2
-	private final char START = '1'; // the starting component
-	private final char END = '2'; // the ending component
-	private final String ALLOWED_CHARS = "OXT12"; // useful for validating with indexOf
+	private static final char OPEN = 'O'; // capital 'o', an open position
+	private static final char CLOSED = 'X';// a blocked position
+	private static final char TRACE = 'T'; // part of the trace connecting 1 to 2
+	private static final char START = '1'; // the starting component
+	private static final char END = '2'; // the ending component
+	private static final String ALLOWED_CHARS = "OXT12"; // useful for validating with indexOf
+
+	// a position is stored as the index of its char in ALLOWED_CHARS
+	private static final int CELL_BITS = 3;
+	private static final int CELLS_PER_WORD = 64 / CELL_BITS;
+	private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+	private static final long OPEN_CODE = ALLOWED_CHARS.indexOf(OPEN);
+	private static final long TRACE_CODE = ALLOWED_CHARS.indexOf(TRACE);
+	private static final long CLOSED_CODE = ALLOWED_CHARS.indexOf(CLOSED);
+	/** code of each allowed char, indexed by the char */
+	private static final byte[] CODES = new byte[128];
+	static {
+		for (int code = 0; code < ALLOWED_CHARS.length(); code++) {
+			CODES[ALLOWED_CHARS.charAt(code)] = (byte) code;
+		}
+	}
 
 	/**
 	 * Construct a CircuitBoard from a given board input file, where the first
@@ -45,7 +64,7 @@ public class CircuitBoard {
 	 * @throws InvalidFileFormatException for any file formatting or content issue
 	 */
 	public CircuitBoard(String filename) throws FileNotFoundException {
-		// Parse the given file to populate the char[][]
+		// Parse the given file to populate the board
 		// throw FileNotFoundException if Scanner cannot read the file
 		// throw InvalidFileFormatException if any issues are encountered while parsing
 		// the file
@@ -77,7 +96,7 @@ public class CircuitBoard {
 			fileScan.close();
 			throw new InvalidFileFormatException(filename + " second value is not an integer.");
 		}
-		board = new char[ROWS][COLS];
+		board = new long[words(ROWS, COLS)];
 
 		// Initialize a count, which will be later used in a conditional check if no start or end is found
 		int oneCount = 0;
@@ -152,7 +171,7 @@ public class CircuitBoard {
 						// Retrieve the value at the column
 						// And populate the board with the values
 						// i, k are integer values to assign to colVal
-						board[i][k] = colVal;
+						setCode(i, k, ALLOWED_CHARS.indexOf(colVal));
 					}
 				}
 			}
@@ -193,21 +212,89 @@ public class CircuitBoard {
 		COLS = original.numCols();
 	}
 
+	/**
+	 * Construct a CircuitBoard from already validated contents, as read by
+	 * MappedBoardReader, DenseBoardFormat or RunLengthBoardFormat.
+	 *
+	 * @param rows  number of rows
+	 * @param cols  number of columns
+	 * @param cells row-major board characters, one byte per position
+	 * @param start location of row,col for '1'
+	 * @param end   location of row,col for '2'
+	 */
+	CircuitBoard(int rows, int cols, byte[] cells, Point start, Point end) {
+		ROWS = rows;
+		COLS = cols;
+		board = new long[words(rows, cols)];
+		// pack a whole word of positions at a time
+		int cell = 0;
+		for (int word = 0; word < board.length; word++) {
+			long bits = 0;
+			int wordEnd = Math.min(cell + CELLS_PER_WORD, cells.length);
+			for (int shift = 0; cell < wordEnd; cell++, shift += CELL_BITS) {
+				bits |= (long) CODES[cells[cell]] << shift;
+			}
+			board[word] = bits;
+		}
+		startingPoint = new Point(start);
+		endingPoint = new Point(end);
+	}
+
 	/**
 	 * Utility method for copy constructor
 	 * 
 	 * @return copy of board array
 	 */
-	private char[][] getBoard() {
-		char[][] copy = new char[board.length][board[0].length];
-		for (int row = 0; row < board.length; row++) {
-			for (int col = 0; col < board[row].length; col++) {
-				copy[row][col] = board[row][col];
-			}
-		}
+	private long[] getBoard() {
+		long[] copy = new long[board.length];
+		System.arraycopy(board, 0, copy, 0, board.length);
 		return copy;
 	}
 
+	/**
+	 * @param rows number of rows
+	 * @param cols number of columns
+	 * @return number of longs needed to store every position
+	 */
+	private static int words(int rows, int cols) {
+		return (int) (((long) rows * cols + CELLS_PER_WORD - 1) / CELLS_PER_WORD);
+	}
+
+	/**
+	 * @param row row coordinate
+	 * @param col col coordinate
+	 * @return index of position row, col in row-major order
+	 * @throws ArrayIndexOutOfBoundsException if row, col is outside the board
+	 */
+	private int index(int row, int col) {
+		if (row < 0 || row >= ROWS || col < 0 || col >= COLS) {
+			throw new ArrayIndexOutOfBoundsException("row " + row + ", col " + col + " is outside the board");
+		}
+		return row * COLS + col;
+	}
+
+	/**
+	 * @param row row coordinate
+	 * @param col col coordinate
+	 * @return code stored at row, col
+	 */
+	private long getCode(int row, int col) {
+		int cell = index(row, col);
+		return (board[cell / CELLS_PER_WORD] >>> (cell % CELLS_PER_WORD * CELL_BITS)) & CELL_MASK;
+	}
+
+	/**
+	 * @param row  row coordinate
+	 * @param col  col coordinate
+	 * @param code code to store at row, col
+	 */
+	private void setCode(int row, int col, long code) {
+		int cell = index(row, col);
+		int shift = cell % CELLS_PER_WORD * CELL_BITS;
+		int word = cell / CELLS_PER_WORD;
+		board[word] = (board[word] & ~(CELL_MASK << shift)) | (code << shift);
+	}
+
 	/**
 	 * Return the char at board position x,y
 	 * 
@@ -216,7 +303,7 @@ public class CircuitBoard {
 	 * @return char at row, col
 	 */
 	public char charAt(int row, int col) {
-		return board[row][col];
+		return ALLOWED_CHARS.charAt((int) getCode(row, col));
 	}
 
 	/**
@@ -227,10 +314,10 @@ public class CircuitBoard {
 	 * @return true if position at (row, col) is open
 	 */
 	public boolean isOpen(int row, int col) {
-		if (row < 0 || row >= board.length || col < 0 || col >= board[row].length) {
+		if (row < 0 || row >= ROWS || col < 0 || col >= COLS) {
 			return false;
 		}
-		return board[row][col] == OPEN;
+		return getCode(row, col) == OPEN_CODE;
 	}
 
 	/**
@@ -242,10 +329,26 @@ public class CircuitBoard {
 	 */
 	public void makeTrace(int row, int col) {
 		if (isOpen(row, col)) {
-			board[row][col] = TRACE;
+			setCode(row, col, TRACE_CODE);
 		} else {
-			throw new OccupiedPositionException("row " + row + ", col " + col + "contains '" + board[row][col] + "'");
+			throw new OccupiedPositionException("row " + row + ", col " + col + "contains '" + charAt(row, col) + "'");
+		}
+	}
+
+	/**
+	 * Set given position to 'O' or 'X'
+	 * 
+	 * @param row
+	 * @param col
+	 * @param open true for 'O', false for 'X'
+	 * @throws OccupiedPositionException if given position is not 'O' or 'X'
+	 */
+	public void setOpen(int row, int col, boolean open) {
+		long code = getCode(row, col);
+		if (code != OPEN_CODE && code != CLOSED_CODE) {
+			throw new OccupiedPositionException("row " + row + ", col " + col + " contains '" + charAt(row, col) + "'");
 		}
+		setCode(row, col, open ? OPEN_CODE : CLOSED_CODE);
 	}
 
 	/** @return starting Point(row,col) */
@@ -275,13 +378,39 @@ public class CircuitBoard {
 	 */
 	public String toString() {
 		StringBuilder str = new StringBuilder();
-		for (int row = 0; row < board.length; row++) {
-			for (int col = 0; col < board[row].length; col++) {
-				str.append(board[row][col] + " ");
+		for (int row = 0; row < ROWS; row++) {
+			for (int col = 0; col < COLS; col++) {
+				str.append(charAt(row, col) + " ");
 			}
 			str.append("\n");
 		}
 		return str.toString();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof CircuitBoard)) {
+			return false;
+		}
+		// the start and end points are part of the packed contents
+		CircuitBoard board = (CircuitBoard) other;
+		return ROWS == board.ROWS && COLS == board.COLS && Arrays.equals(this.board, board.board);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#hashCode()
+	 */
+	public int hashCode() {
+		return 31 * (31 * ROWS + COLS) + Arrays.hashCode(board);
+	}
+
 }// class CircuitBoard
@@ -0,0 +1,527 @@
+import java.awt.Point;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * Library entry point to the searches behind CircuitTracer: give it a
+ * CircuitBoard and get back a SolverResult, with no argument parsing and
+ * nothing printed. How it searches is fixed by the SolverOptions it is made
+ * with.
+ * 
+ * A solver holds nothing but its options, and every search keeps its state
+ * in its own locals, so one solver can solve any number of boards at the
+ * same time from different threads. Boards are only read, never copied;
+ * a board must not be changed while it is being solved or while its
+ * result is still to be written. Each search allocates only what the
+ * strategy needs; results hold the paths found, not copies of them.
+ * 
+ * Each search declares in its SearchMetrics the counters it keeps, and
+ * SearchMetrics lists which strategy keeps which. Every search that lists
+ * paths, with or without threads, counts the TraceStates it created and the
+ * solutions it found, and all but dag also count states retrieved and the
+ * peak frontier. Count mode keeps no counters at all.
+ * 
+ * @author Kyle Truschel
+ */
+public class CircuitSolver {
+	private final SolverOptions options;
+
+	/**
+	 * @param options how to search and what the results hold
+	 */
+	public CircuitSolver(SolverOptions options) {
+		this.options = options;
+	}
+
+	/** @return options every search of this solver uses */
+	public SolverOptions getOptions() {
+		return options;
+	}
+
+	/**
+	 * Solve a board within the limits of the options.
+	 * 
+	 * @param board board to search, not modified
+	 * @return what the search found
+	 */
+	public SolverResult solve(CircuitBoard board) {
+		return solve(board, options.newBudget(), new SearchMetrics());
+	}
+
+	/**
+	 * Solve a board within the limits of the given budget instead of those of
+	 * the options. Cancelling the budget from another thread stops the
+	 * search early with the best paths found so far.
+	 * 
+	 * @param board  board to search, not modified
+	 * @param budget limits of this search, usually from options.newBudget()
+	 * @return what the search found
+	 */
+	public SolverResult solve(CircuitBoard board, SearchBudget budget) {
+		return solve(board, budget, new SearchMetrics());
+	}
+
+	/**
+	 * Solve a board, recording the work in the caller's metrics. The search
+	 * phase is timed into them, so a caller can time its own parse and
+	 * output phases into the same metrics.
+	 * 
+	 * @param board   board to search, not modified
+	 * @param budget  limits of this search
+	 * @param metrics counts of the work done, returned with the result
+	 * @return what the search found
+	 */
+	public SolverResult solve(CircuitBoard board, SearchBudget budget, SearchMetrics metrics) {
+		metrics.startPhase(SearchMetrics.Phase.search);
+		SolverResult result;
+		if (options.output() == SolverOptions.Output.count) {
+			// counted over the DAG layers, so the paths are never listed
+			ShortestPathDag dag = new ShortestPathDag(board);
+			result = new SolverResult(board, options.output(), new ArrayList<TraceState>(), dag.bestLength(),
+					dag.countPaths(), metrics);
+		} else {
+			ArrayList<TraceState> bestPaths = search(board, budget, metrics);
+			metrics.stoppedBy(budget.reached());
+			result = new SolverResult(board, options.output(), bestPaths,
+					bestPaths.isEmpty() ? 0 : bestPaths.get(0).pathLength(), BigInteger.valueOf(bestPaths.size()),
+					metrics);
+		}
+		metrics.endPhase();
+		return result;
+	}
+
+	/**
+	 * Write each shortest path of a board to a stream as soon as the DAG
+	 * produces it, in the output mode of the options. The stream is flushed
+	 * after every path, so a reader sees each one without waiting for a
+	 * buffer to fill. Only the path being written is held in memory, so the
+	 * number of paths does not matter.
+	 * 
+	 * @param board board to search, not modified
+	 * @param out   stream to write to, preferably buffered; flushed per path
+	 * @throws IOException                   if the stream cannot be written
+	 * @throws UnsupportedOperationException unless the options are a dag
+	 *                                       search listing boards or traces
+	 */
+	public void stream(CircuitBoard board, OutputStream out) throws IOException {
+		if (options.strategy() != SolverOptions.Strategy.dag || options.output() == SolverOptions.Output.count) {
+			throw new UnsupportedOperationException("only dag searches listing paths can stream them");
+		}
+		SolutionRenderer renderer = new SolutionRenderer(board, out,
+				options.output() == SolverOptions.Output.traces);
+		Iterator<int[]> paths = new ShortestPathDag(board).pathIterator();
+		while (paths.hasNext()) {
+			int[] cells = paths.next();
+			renderer.write(cells, cells.length);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Find all shortest paths on a board with the strategy of the options,
+	 * or just one for jumpPoint, stopping the searches that run on a Storage
+	 * early if the budget runs out.
+	 * 
+	 * @param board   board to search, not modified
+	 * @param budget  limits checked before each state is expanded
+	 * @param metrics counts of the work done by the search
+	 * @return all shortest paths found, or the best found so far if the
+	 *         budget ran out; empty if there are none
+	 */
+	private ArrayList<TraceState> search(CircuitBoard board, SearchBudget budget, SearchMetrics metrics) {
+		// every search that lists paths keeps these; the rest depend on the strategy
+		metrics.keeps(SearchMetrics.Counter.statesCreated, SearchMetrics.Counter.solutionsFound);
+		switch (options.strategy()) {
+			case stack:
+			case queue:
+				if (options.threads() > 0) {
+					// Subtrees are independent, so a parallel search finds the same
+					// paths whichever Storage was asked for
+					ParallelSearch parallel = new ParallelSearch(board, options.threads(), budget);
+					metrics.keeps(SearchMetrics.Counter.statesRetrieved, SearchMetrics.Counter.peakFrontier,
+							SearchMetrics.Counter.solutionsDiscarded);
+					metrics.addStatesCreated(parallel.statesCreated());
+					metrics.addStatesRetrieved(parallel.statesRetrieved());
+					metrics.frontierPeak(parallel.peakStack());
+					ArrayList<TraceState> best = parallel.getBestPaths();
+					metrics.solutionsDiscarded(parallel.solutionsFound() - best.size());
+					metrics.addSolutionsFound(parallel.solutionsFound());
+					return best;
+				}
+				TranspositionTable table = options.tableSize() > 0 ? new TranspositionTable(options.tableSize())
+						: null;
+				metrics.keeps(SearchMetrics.Counter.statesRetrieved, SearchMetrics.Counter.peakFrontier,
+						SearchMetrics.Counter.storageResizes, SearchMetrics.Counter.solutionsDiscarded);
+				if (table != null) {
+					metrics.keeps(SearchMetrics.Counter.duplicatesDropped);
+				}
+				if (options.strategy() == SolverOptions.Strategy.stack) {
+					return traceWithStorage(board, Storage.getStackInstance(), table, budget, metrics);
+				} else {
+					return traceWithStorage(board, Storage.getQueueInstance(), table, budget, metrics);
+				}
+			case packed:
+				// The packed BFS searches one shared grid and only builds
+				// TraceStates for the best paths it finds
+				PackedSearch packed = new PackedSearch(board);
+				metrics.keeps(SearchMetrics.Counter.statesRetrieved, SearchMetrics.Counter.peakFrontier);
+				metrics.addStatesCreated(packed.statesCreated());
+				metrics.addStatesRetrieved(packed.statesRetrieved());
+				metrics.frontierPeak(packed.peakLayer());
+				return solutions(packed.getBestPaths(board), metrics);
+			case dag:
+				// Two BFS passes find the cells on shortest paths, then the
+				// paths are enumerated straight from that DAG
+				ArrayList<TraceState> paths = new ShortestPathDag(board).getBestPaths();
+				metrics.addStatesCreated(paths.size());
+				return solutions(paths, metrics);
+			case aStar:
+				metrics.keeps(SearchMetrics.Counter.statesRetrieved, SearchMetrics.Counter.peakFrontier,
+						SearchMetrics.Counter.storageResizes);
+				if (options.firstPathOnly()) {
+					metrics.keeps(SearchMetrics.Counter.duplicatesDropped);
+				}
+				return traceBestFirst(board, options.firstPathOnly(), budget, metrics);
+			case branchAndBound:
+				metrics.keeps(SearchMetrics.Counter.statesRetrieved, SearchMetrics.Counter.peakFrontier,
+						SearchMetrics.Counter.storageResizes, SearchMetrics.Counter.solutionsDiscarded);
+				return traceBranchAndBound(board, options.seedBound(), budget, metrics);
+			case bidirectional:
+				BidirectionalSearch bidirectional = new BidirectionalSearch(board, options.firstPathOnly());
+				metrics.keeps(SearchMetrics.Counter.statesRetrieved, SearchMetrics.Counter.peakFrontier,
+						SearchMetrics.Counter.storageResizes);
+				metrics.addStatesCreated(bidirectional.statesCreated());
+				metrics.addStatesRetrieved(bidirectional.statesRetrieved());
+				metrics.frontierPeak(bidirectional.peakFrontier());
+				metrics.storageResized(bidirectional.resizeCount());
+				return solutions(bidirectional.getBestPaths(), metrics);
+			default:
+				// Jump point search stores only the cells where a trace may
+				// turn and stops at the first shortest path
+				JumpPointSearch jump = new JumpPointSearch(board);
+				metrics.keeps(SearchMetrics.Counter.statesRetrieved, SearchMetrics.Counter.peakFrontier);
+				metrics.addStatesCreated(jump.statesCreated());
+				metrics.addStatesRetrieved(jump.statesRetrieved());
+				metrics.frontierPeak(jump.peakOpen());
+				return solutions(jump.getBestPaths(), metrics);
+		}
+	}
+
+	/**
+	 * Record the paths of a search that does not report its own solutions.
+	 * 
+	 * @param bestPaths shortest paths found by the search
+	 * @param metrics   counts of the work done by the search
+	 * @return bestPaths
+	 */
+	private static ArrayList<TraceState> solutions(ArrayList<TraceState> bestPaths, SearchMetrics metrics) {
+		metrics.addSolutionsFound(bestPaths.size());
+		return bestPaths;
+	}
+
+	/**
+	 * A* search for all shortest paths. TraceStates come out of a priority
+	 * Storage ordered by path length plus the fewest traces still needed to
+	 * reach the ending component (Manhattan distance minus one), so states
+	 * heading toward '2' are expanded first. That estimate never overshoots,
+	 * so once a retrieved state's estimate is longer than the best path
+	 * found, every shortest path has already been found and the search stops.
+	 * 
+	 * To find only one path, the search also expands each cell only once.
+	 * The estimate is consistent (a step changes it by at most one), so the
+	 * first state retrieved on a cell has a shortest path to it, later ones
+	 * are dropped, and the first solution retrieved is returned. That keeps
+	 * the work linear in the board size.
+	 * 
+	 * @param board         board to search
+	 * @param firstOnly     true to stop at the first shortest path
+	 * @param budget        limits checked before each state is retrieved
+	 * @param metrics       counts of the work done by the search
+	 * @return all shortest paths found, or one if firstOnly; empty if there
+	 *         are none
+	 */
+	private static ArrayList<TraceState> traceBestFirst(CircuitBoard board, boolean firstOnly,
+			SearchBudget budget, SearchMetrics metrics) {
+		ArrayList<TraceState> bestPaths = new ArrayList<TraceState>();
+		// positions no trace can use are closed to the search, and a board
+		// with no trace at all is not searched
+		BoardPruner pruner = new BoardPruner(board);
+		if (!pruner.hasPath()) {
+			return bestPaths;
+		}
+		OverlayBoard startingView = pruner.startingView();
+		Point end = board.getEndingPoint();
+		// ties go to the longer path, which is closer to being a solution
+		Storage<TraceState> stateStore = Storage.getPriorityInstance(
+				Comparator.comparingInt((TraceState state) -> estimate(state, end))
+						.thenComparing(Comparator.comparingInt(TraceState::pathLength).reversed()));
+		// cells already expanded, only kept when one path is enough
+		boolean[] expanded = firstOnly ? new boolean[board.numRows() * board.numCols()] : null;
+
+		int x = board.getStartingPoint().x;
+		int y = board.getStartingPoint().y;
+		int[][] steps = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+		for (int[] step : steps) {
+			if (startingView.isOpen(x + step[0], y + step[1])) {
+				stateStore.store(new TraceState(startingView, x + step[0], y + step[1]));
+				metrics.stateCreated();
+			}
+		}
+
+		while (!stateStore.isEmpty() && !budget.exhausted(metrics.statesCreated())) {
+			TraceState currentState = stateStore.retrieve();
+			metrics.stateRetrieved();
+
+			// nothing left can be as short as the paths already found
+			if (!bestPaths.isEmpty() && estimate(currentState, end) > bestPaths.get(0).pathLength()) {
+				break;
+			}
+
+			if (expanded != null) {
+				int cell = currentState.getRow() * board.numCols() + currentState.getCol();
+				if (expanded[cell]) {
+					metrics.duplicatesDropped(1);
+					continue;
+				}
+				expanded[cell] = true;
+			}
+
+			// solutions come out shortest first, so every one reaching here is a best path
+			if (currentState.isSolution()) {
+				metrics.solutionFound();
+				bestPaths.add(currentState);
+				if (firstOnly) {
+					break;
+				}
+			} else {
+				x = currentState.getRow();
+				y = currentState.getCol();
+				for (int[] step : steps) {
+					if (currentState.isOpen(x + step[0], y + step[1])) {
+						stateStore.store(new TraceState(currentState, x + step[0], y + step[1]));
+						metrics.stateCreated();
+					}
+				}
+			}
+		}
+		metrics.frontierPeak(stateStore.peakSize());
+		metrics.storageResized(stateStore.resizeCount());
+		return bestPaths;
+	}
+
+	/**
+	 * Depth-first search that stops extending a path once it cannot beat the
+	 * best path found so far. A child is discarded before it is created (so
+	 * its board is never copied) when its length plus the Manhattan distance
+	 * still left to the ending component, minus one, exceeds the bound. The
+	 * bound starts unlimited and drops each time a shorter path turns up, or
+	 * it can start at the exact shortest length found by a BFS of the board,
+	 * which prunes from the very first path.
+	 * 
+	 * @param board         board to search
+	 * @param seedBound     true to start with the BFS shortest length as the bound
+	 * @param budget        limits checked before each state is retrieved
+	 * @param metrics       counts of the work done by the search
+	 * @return all shortest paths found, empty if there are none
+	 */
+	private static ArrayList<TraceState> traceBranchAndBound(CircuitBoard board, boolean seedBound,
+			SearchBudget budget, SearchMetrics metrics) {
+		ArrayList<TraceState> bestPaths = new ArrayList<TraceState>();
+		// positions no trace can use are closed to the search, and a board
+		// with no trace at all is not searched
+		BoardPruner pruner = new BoardPruner(board);
+		if (!pruner.hasPath()) {
+			return bestPaths;
+		}
+		OverlayBoard startingView = pruner.startingView();
+		Point end = board.getEndingPoint();
+		int bound = Integer.MAX_VALUE;
+		if (seedBound) {
+			bound = new BoardGrid(board).shortestPathLength();
+			// no path at all, nothing to search
+			if (bound == 0) {
+				return bestPaths;
+			}
+		}
+		Storage<TraceState> stateStore = Storage.getStackInstance();
+
+		int x = board.getStartingPoint().x;
+		int y = board.getStartingPoint().y;
+		int[][] steps = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+		for (int[] step : steps) {
+			if (startingView.isOpen(x + step[0], y + step[1])
+					&& distance(x + step[0], y + step[1], end) <= bound) {
+				stateStore.store(new TraceState(startingView, x + step[0], y + step[1]));
+				metrics.stateCreated();
+			}
+		}
+
+		while (!stateStore.isEmpty() && !budget.exhausted(metrics.statesCreated())) {
+			TraceState currentState = stateStore.retrieve();
+			metrics.stateRetrieved();
+
+			// the bound may have dropped since this state was stored
+			if (estimate(currentState, end) > bound) {
+				continue;
+			}
+
+			if (currentState.isSolution()) {
+				metrics.solutionFound();
+				if (currentState.pathLength() < bound || bestPaths.isEmpty()) {
+					metrics.solutionsDiscarded(bestPaths.size());
+					bestPaths.clear();
+					bound = currentState.pathLength();
+				}
+				bestPaths.add(currentState);
+			} else {
+				x = currentState.getRow();
+				y = currentState.getCol();
+				int childLength = currentState.pathLength() + 1;
+				for (int[] step : steps) {
+					if (currentState.isOpen(x + step[0], y + step[1])
+							&& childLength + distance(x + step[0], y + step[1], end) - 1 <= bound) {
+						stateStore.store(new TraceState(currentState, x + step[0], y + step[1]));
+						metrics.stateCreated();
+					}
+				}
+			}
+		}
+		metrics.frontierPeak(stateStore.peakSize());
+		metrics.storageResized(stateStore.resizeCount());
+		return bestPaths;
+	}
+
+	/**
+	 * @param row row coordinate
+	 * @param col col coordinate
+	 * @param end location of the ending component
+	 * @return Manhattan distance from (row, col) to the ending component
+	 */
+	private static int distance(int row, int col, Point end) {
+		return Math.abs(row - end.x) + Math.abs(col - end.y);
+	}
+
+	/**
+	 * @param state search state
+	 * @param end   location of the ending component
+	 * @return lower bound on the length of any solution extending state
+	 */
+	private static int estimate(TraceState state, Point end) {
+		return state.pathLength() + distance(state.getRow(), state.getCol(), end) - 1;
+	}
+
+	/**
+	 * Search for all shortest paths by expanding TraceStates kept in the
+	 * given Storage.
+	 * 
+	 * @param board         board to search
+	 * @param stateStore    empty Storage to hold TraceStates waiting to be expanded
+	 * @param table         states stored so far, to drop repeats of them, or null
+	 * @param budget        limits checked before each state is retrieved
+	 * @param metrics       counts of the work done by the search
+	 * @return all shortest paths found, empty if there are none
+	 */
+	private static ArrayList<TraceState> traceWithStorage(CircuitBoard board, Storage<TraceState> stateStore,
+			TranspositionTable table, SearchBudget budget, SearchMetrics metrics) {
+		ArrayList<TraceState> bestPaths = new ArrayList<TraceState>();
+		// positions no trace can use are closed to the search, and a board
+		// with no trace at all is not searched
+		BoardPruner pruner = new BoardPruner(board);
+		if (!pruner.hasPath()) {
+			return bestPaths;
+		}
+		OverlayBoard startingView = pruner.startingView();
+
+		// Add a new initial TraceState object (a path with one trace)
+		// to stateStore for each open position adjacent to the starting component
+		int x = board.getStartingPoint().x;
+		int y = board.getStartingPoint().y;
+
+		// Check right
+		if (startingView.isOpen(x + 1, y)) {
+			stateStore.store(new TraceState(startingView, x + 1, y));
+			metrics.stateCreated();
+		}
+
+		// Check left
+		if (startingView.isOpen(x - 1, y)) {
+			stateStore.store(new TraceState(startingView, x - 1, y));
+			metrics.stateCreated();
+		}
+
+		// Check up
+		if (startingView.isOpen(x, y + 1)) {
+			stateStore.store(new TraceState(startingView, x, y + 1));
+			metrics.stateCreated();
+		}
+
+		// Check down
+		if (startingView.isOpen(x, y - 1)) {
+			stateStore.store(new TraceState(startingView, x, y - 1));
+			metrics.stateCreated();
+		}
+
+		// a spent budget leaves bestPaths as the best found so far
+		while (!stateStore.isEmpty() && !budget.exhausted(metrics.statesCreated())) {
+			TraceState currentState = stateStore.retrieve();
+			metrics.stateRetrieved();
+
+			// if bestPaths is empty or the TraceState object's path is equal in length to
+			// one of the TraceStates in bestPaths,
+			// add it to bestPaths
+			// else if that TraceState object's path is shorter than the paths in bestPaths,
+			// clear bestPaths and add the current TraceState as the new shortest path
+			if (currentState.isSolution()) {
+				metrics.solutionFound();
+				// The first found scenario, meaning bestPaths is empty, or similar length paths
+				// are found
+				if (bestPaths.isEmpty() || currentState.pathLength() == bestPaths.get(0).pathLength()) {
+					bestPaths.add(currentState);
+
+					// If a shorter path is found, clear bestPaths and add the new shortest path
+				} else if (currentState.pathLength() < bestPaths.get(0).pathLength()) {
+					metrics.solutionsDiscarded(bestPaths.size());
+					bestPaths.clear();
+					bestPaths.add(currentState);
+				} else {
+					metrics.solutionsDiscarded(1);
+				}
+			}
+
+			// else generate all valid next TraceState objects from the current TraceState
+			// and add them to stateStore
+			else {
+				// Get the current position of x and y
+				x = currentState.getRow();
+				y = currentState.getCol();
+
+				if (currentState.isOpen(x - 1, y) && (table == null || table.visit(currentState, x - 1, y))) {
+					stateStore.store(new TraceState(currentState, x - 1, y));
+					metrics.stateCreated();
+				}
+				if (currentState.isOpen(x + 1, y) && (table == null || table.visit(currentState, x + 1, y))) {
+					stateStore.store(new TraceState(currentState, x + 1, y));
+					metrics.stateCreated();
+				}
+				if (currentState.isOpen(x, y - 1) && (table == null || table.visit(currentState, x, y - 1))) {
+					stateStore.store(new TraceState(currentState, x, y - 1));
+					metrics.stateCreated();
+				}
+				if (currentState.isOpen(x, y + 1) && (table == null || table.visit(currentState, x, y + 1))) {
+					stateStore.store(new TraceState(currentState, x, y + 1));
+					metrics.stateCreated();
+				}
+			}
+		}
+		metrics.frontierPeak(stateStore.peakSize());
+		metrics.storageResized(stateStore.resizeCount());
+		if (table != null) {
+			metrics.duplicatesDropped(table.dropped());
+		}
+		return bestPaths;
+	}
+} // class CircuitSolver
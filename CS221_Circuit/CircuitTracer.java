@@ -1,5 +1,10 @@
+import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.List;
 
 /**
  * Search for shortest paths between start and end points on a circuit board
@@ -11,14 +16,38 @@ import java.util.ArrayList;
  * @author Kyle Truschel
  */
 public class CircuitTracer {
+	/** file size in bytes from which boards are read by MappedBoardReader */
+	private static final long MAPPED_LOAD_THRESHOLD = 1 << 20;
+	/** bytes of console output collected before each write to System.out */
+	private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
 
 	/**
 	 * Launch the program.
 	 * 
 	 * @param args three required arguments:
-	 *             first arg: -s for stack or -q for queue
-	 *             second arg: -c for console output or -g for GUI output
-	 *             third arg: input file name
+	 *             first arg: -s for stack, -q for queue, -f for packed BFS
+	 *             -d for shortest path DAG, -n to count shortest paths,
+	 *             -a for A*, -b for bidirectional BFS, -r for
+	 *             branch-and-bound stack or -j for jump point search
+	 *             second arg: -c for console output, -l for console output
+	 *             streamed as paths are found (-d only) or -g for GUI output
+	 *             last arg: input file name, or with -o a directory of
+	 *             board files or a file listing them
+	 *             optional args between the second and last:
+	 *             -p threads to search with a pool of threads (-s or -q only)
+	 *             -u to start -r with the BFS shortest length as its bound
+	 *             -1 to stop a -a or -b search at the first shortest path
+	 *             -o dir to solve a batch of boards into result files (-c only)
+	 *             -w workers to solve that many batch boards at a time
+	 *             -v to print search metrics after the results
+	 *             -m file to write search metrics to file as JSON
+	 *             -x entries to drop repeated states with a transposition
+	 *             table of that many entries (-s or -q only)
+	 *             -t to print only the trace coordinates of each path
+	 *             (-c or -l only)
+	 *             -e millis and -k states to stop a -s, -q, -a or -r search
+	 *             after that much time or that many TraceStates and print
+	 *             the best paths found so far, per board with -o
 	 */
 	public static void main(String[] args) {
 		new CircuitTracer(args); // create this with args
@@ -26,8 +55,26 @@ public class CircuitTracer {
 
 	/** Print instructions for running CircuitTracer from the command line. */
 	private void printUsage() {
-		System.out.println(
-				"Usage: java CircuitTracer -s|-q -c|-g filename \n -s for stack or -q for queue \n -c for console or -g for GUI");
+		System.out.println("Usage: java CircuitTracer -s|-q|-f|-d|-n|-a|-b|-r|-j -c|-l|-g [-p threads] [-u] [-1] [-x entries] [-t] [-e millis] [-k states] [-v] [-m file] [-o dir [-w workers]] filename \n"
+				+ " -s for stack or -q for queue \n"
+				+ " -a for A* (priority queue) or -b for bidirectional BFS \n"
+				+ " -r for stack with branch-and-bound pruning \n"
+				+ " -j for jump point search (one shortest path) \n"
+				+ " -f for packed BFS or -d for shortest path DAG (same results as -q) \n"
+				+ " -n to count shortest paths without listing them \n"
+				+ " -c for console, -l for streamed console (-d only) or -g for GUI \n"
+				+ " -p threads to split a -s or -q search over the given number of threads \n"
+				+ " -u to seed the -r bound with the shortest length from a quick BFS \n"
+				+ " -1 to stop a -a or -b search at the first shortest path \n"
+				+ " -x entries to drop repeated -s or -q states, remembering at most that many \n"
+				+ " -t to print only the row,col of each trace of a path, one path per line \n"
+				+ " -e millis or -k states to stop a -s, -q, -a or -r search after that long or \n"
+				+ "    that many states and print the best paths found so far \n"
+				+ " -o dir to solve every board in the directory or list file named by filename, \n"
+				+ "    writing one results file per board and summary.csv to dir (-c only) \n"
+				+ " -w workers to solve that many boards of a batch at a time (-o only) \n"
+				+ " -v to print search metrics after the results \n"
+				+ " -m file to write search metrics to file as JSON");
 	}
 
 	/**
@@ -40,39 +87,147 @@ public class CircuitTracer {
 		// Parse and validate command line args - first validation provided
 		CircuitBoard board = null;
 
-		if (args.length != 3) {
+		if (args.length < 3) {
 			printUsage();
 			return; // exit the constructor immediately
 		}
-		if (!args[0].equals("-s") && !args[0].equals("-q")) {
+		String filename = args[args.length - 1];
+
+		// Optional arguments sit between the output choice and the file name
+		int threads = 0;
+		boolean seedBound = false;
+		boolean firstOnly = false;
+		int tableSize = 0;
+		boolean tracesOnly = false;
+		int timeLimit = 0;
+		int stateLimit = 0;
+		String outputDir = null;
+		int workers = 0;
+		boolean verbose = false;
+		String metricsFile = null;
+		for (int i = 2; i < args.length - 1; i++) {
+			switch (args[i]) {
+				case "-p":
+					threads = parsePositive(args, ++i);
+					if (threads < 1) {
+						printUsage();
+						return;
+					}
+					break;
+				case "-u":
+					seedBound = true;
+					break;
+				case "-1":
+					firstOnly = true;
+					break;
+				case "-x":
+					tableSize = parsePositive(args, ++i);
+					if (tableSize < 1) {
+						printUsage();
+						return;
+					}
+					break;
+				case "-o":
+					if (++i >= args.length - 1) {
+						printUsage();
+						return;
+					}
+					outputDir = args[i];
+					break;
+				case "-t":
+					tracesOnly = true;
+					break;
+				case "-e":
+					timeLimit = parsePositive(args, ++i);
+					if (timeLimit < 1) {
+						printUsage();
+						return;
+					}
+					break;
+				case "-k":
+					stateLimit = parsePositive(args, ++i);
+					if (stateLimit < 1) {
+						printUsage();
+						return;
+					}
+					break;
+				case "-v":
+					verbose = true;
+					break;
+				case "-m":
+					if (++i >= args.length - 1) {
+						printUsage();
+						return;
+					}
+					metricsFile = args[i];
+					break;
+				case "-w":
+					workers = parsePositive(args, ++i);
+					if (workers < 1) {
+						printUsage();
+						return;
+					}
+					break;
+				default:
+					printUsage();
+					return;
+			}
+		}
+		if (!args[1].equals("-c") && !args[1].equals("-l") && !args[1].equals("-g")) {
 			printUsage();
 			return;
 		}
 
-		if (!args[1].equals("-c") && !args[1].equals("-g")) {
+		// Only the DAG search can hand out paths before the search is over
+		if (args[1].equals("-l") && !args[0].equals("-d")) {
 			printUsage();
 			return;
 		}
 
-		// Initialize the Storage to use either a stack or queue
-		// Intialize an empty Storage object that stores objects of type TraceState
-		Storage<TraceState> stateStore = null;
+		// Only paths printed to the console can be cut down to their traces
+		if (tracesOnly && (args[1].equals("-g") || args[0].equals("-n"))) {
+			printUsage();
+			return;
+		}
 
-		switch (args[0]) {
-			case "-s":
-				stateStore = Storage.getStackInstance();
-				break;
-			case "-q":
-				stateStore = Storage.getQueueInstance();
-				break;
-			default:
+		// The rest of the strategy options are checked as SolverOptions are built
+		SolverOptions options;
+		try {
+			boolean count = args[0].equals("-n");
+			options = SolverOptions.defaults()
+					.withStrategy(SolverOptions.Strategy.fromFlag(count ? "-d" : args[0]))
+					.withOutput(count ? SolverOptions.Output.count
+							: tracesOnly ? SolverOptions.Output.traces : SolverOptions.Output.boards)
+					.withThreads(threads).withSeedBound(seedBound).withFirstPathOnly(firstOnly)
+					.withTableSize(tableSize).withTimeLimit(timeLimit).withStateLimit(stateLimit);
+		} catch (IllegalArgumentException e) {
+			printUsage();
+			return;
+		}
+		CircuitSolver solver = new CircuitSolver(options);
+
+		// Batch mode writes every board's paths to files, so there is
+		// nothing to count, stream or show on the console; the options of
+		// each search and how its paths are written still apply per board
+		if (outputDir != null) {
+			if (!args[1].equals("-c") || args[0].equals("-n") || verbose || metricsFile != null) {
 				printUsage();
 				return;
+			}
+			runBatch(options, workers > 0 ? workers : Runtime.getRuntime().availableProcessors(), outputDir,
+					filename);
+			return;
+		}
+		if (workers > 0) {
+			printUsage();
+			return;
 		}
 
 		// Read in the CircuitBoard from the given file
+		SearchMetrics metrics = new SearchMetrics();
+		metrics.startPhase(SearchMetrics.Phase.parse);
 		try {
-			board = new CircuitBoard(args[2]);
+			board = loadBoard(filename);
 		} catch (FileNotFoundException e) {
 			System.out.println(e + " File was not found.");
 			return;
@@ -81,92 +236,131 @@ public class CircuitTracer {
 			return;
 		}
 
-		// Run the search for best paths
-		// Initalize an empty list that stores objects of type TraceState
-		ArrayList<TraceState> bestPaths = new ArrayList<TraceState>();
-
-		// Add a new initial TraceState object (a path with one trace)
-		// to stateStore for each open position adjacent to the starting component
-		int x = board.getStartingPoint().x;
-		int y = board.getStartingPoint().y;
-
-		// Check right
-		if (board.isOpen(x + 1, y)) {
-			stateStore.store(new TraceState(board, x + 1, y));
-		}
-
-		// Check left
-		if (board.isOpen(x - 1, y)) {
-			stateStore.store(new TraceState(board, x - 1, y));
-		}
-
-		// Check up
-		if (board.isOpen(x, y + 1)) {
-			stateStore.store(new TraceState(board, x, y + 1));
+		if (args[1].equals("-g")) {
+			// not for 10 points; counts are not even worked out for it
+			if (!args[0].equals("-n")) {
+				solver.solve(board, options.newBudget(), metrics);
+			}
+			metrics.startPhase(SearchMetrics.Phase.output);
+			System.out.println("GUI mode is not supported in this version.");
+		} else {
+			try {
+				OutputStream out = new BufferedOutputStream(System.out, OUTPUT_BUFFER_SIZE);
+				if (args[1].equals("-l")) {
+					// each path is printed and flushed while the DAG is walked, so it is all output
+					metrics.startPhase(SearchMetrics.Phase.output);
+					solver.stream(board, out);
+				} else {
+					SolverResult result = solver.solve(board, options.newBudget(), metrics);
+					metrics.startPhase(SearchMetrics.Phase.output);
+					result.writeTo(out);
+				}
+				out.flush();
+			} catch (IOException e) {
+				System.out.println(e + " Paths could not be written.");
+			}
+			if (metrics.isPartial()) {
+				System.out.println(partialNote(metrics.stoppedBy()));
+			}
 		}
+		metrics.endPhase();
+		reportMetrics(metrics, verbose, metricsFile);
+	}
 
-		// Check down
-		if (board.isOpen(x, y - 1)) {
-			stateStore.store(new TraceState(board, x, y - 1));
+	/**
+	 * Print the metrics of a run and write them as JSON, as requested.
+	 * 
+	 * @param metrics     metrics of the finished run
+	 * @param verbose     true to print the metrics to the console
+	 * @param metricsFile file to write the metrics to as JSON, or null
+	 */
+	private void reportMetrics(SearchMetrics metrics, boolean verbose, String metricsFile) {
+		if (verbose) {
+			System.out.print(metrics);
 		}
-
-		while (!stateStore.isEmpty()) {
-			TraceState currentState = stateStore.retrieve();
-
-			// if bestPaths is empty or the TraceState object's path is equal in length to
-			// one of the TraceStates in bestPaths,
-			// add it to bestPaths
-			// else if that TraceState object's path is shorter than the paths in bestPaths,
-			// clear bestPaths and add the current TraceState as the new shortest path
-			if (currentState.isSolution()) {
-				// The first found scenario, meaning bestPaths is empty, or similar length paths
-				// are found
-				if (bestPaths.isEmpty() || currentState.pathLength() == bestPaths.get(0).pathLength()) {
-					bestPaths.add(currentState);
-
-					// If a shorter path is found, clear bestPaths and add the new shortest path
-				} else if (currentState.pathLength() < bestPaths.get(0).pathLength()) {
-					bestPaths.clear();
-					bestPaths.add(currentState);
-				}
+		if (metricsFile != null) {
+			try (PrintWriter out = new PrintWriter(metricsFile)) {
+				out.println(metrics.toJson());
+			} catch (FileNotFoundException e) {
+				System.out.println(e + " Metrics could not be written.");
 			}
+		}
+	}
 
-			// else generate all valid next TraceState objects from the current TraceState
-			// and add them to stateStore
-			else {
-				// Get the current position of x and y
-				x = currentState.getRow();
-				y = currentState.getCol();
+	/**
+	 * @param limit limit that stopped a search early
+	 * @return line printed after the paths of that search
+	 */
+	static String partialNote(SearchBudget.Limit limit) {
+		return "Search stopped early (" + limit + " limit reached); these are the best paths found so far.";
+	}
 
-				if (currentState.isOpen(x - 1, y)) {
-					stateStore.store(new TraceState(currentState, x - 1, y));
-				}
-				if (currentState.isOpen(x + 1, y)) {
-					stateStore.store(new TraceState(currentState, x + 1, y));
-				}
-				if (currentState.isOpen(x, y - 1)) {
-					stateStore.store(new TraceState(currentState, x, y - 1));
-				}
-				if (currentState.isOpen(x, y + 1)) {
-					stateStore.store(new TraceState(currentState, x, y + 1));
-				}
-			}
+	/**
+	 * Solve every board in a directory or list file with a BatchTracer and
+	 * report where the results went.
+	 * 
+	 * @param options   how to search each board
+	 * @param workers   number of boards to solve at the same time
+	 * @param outputDir directory for the results and summary files
+	 * @param source    directory of .dat files or file listing board files
+	 */
+	private void runBatch(SolverOptions options, int workers, String outputDir, String source) {
+		BatchTracer batch = new BatchTracer(options, workers, new File(outputDir));
+		try {
+			List<File> boards = BatchTracer.listBoards(new File(source));
+			int solved = batch.run(boards);
+			System.out.println("Solved " + solved + " of " + boards.size() + " boards, summary written to "
+					+ new File(outputDir, BatchTracer.SUMMARY_FILE));
+		} catch (IOException e) {
+			System.out.println(e + " Batch could not be completed.");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			System.out.println("Batch was interrupted.");
 		}
+	}
 
-		// Output results to console or GUI, according to specified choice
-		switch (args[1]) {
-			case "-c":
-				for (TraceState path : bestPaths) {
-					System.out.println(path.getBoard().toString());
-				}
-				break;
-			// not for 10 points
-			case "-g":
-				System.out.println("GUI mode is not supported in this version.");
-				break;
+	/**
+	 * Read the board from the given file, in whichever format its first bytes
+	 * show. Dense and run-length files go to their own streaming readers.
+	 * Large .dat files are memory-mapped and parsed in place, small ones go
+	 * through the Scanner-based constructor.
+	 * 
+	 * @param filename input file name
+	 * @return board read from the file
+	 * @throws FileNotFoundException      if the file cannot be opened or read
+	 * @throws InvalidFileFormatException for any file formatting or content issue
+	 */
+	static CircuitBoard loadBoard(String filename) throws FileNotFoundException {
+		switch (BoardConverter.detect(new File(filename))) {
+			case dense:
+				return DenseBoardFormat.read(filename);
+			case rle:
+				return RunLengthBoardFormat.read(filename);
 			default:
-				printUsage();
-				return;
+				break;
+		}
+		if (new File(filename).length() >= MAPPED_LOAD_THRESHOLD) {
+			return MappedBoardReader.read(filename);
+		}
+		return new CircuitBoard(filename);
+	}
+
+	/**
+	 * Read the value following an option as a positive integer.
+	 * 
+	 * @param args  command line arguments
+	 * @param index position of the value, must come before the file name
+	 * @return the value, or -1 if it is missing or not a positive integer
+	 */
+	private int parsePositive(String[] args, int index) {
+		if (index >= args.length - 1) {
+			return -1;
+		}
+		try {
+			int value = Integer.parseInt(args[index]);
+			return value > 0 ? value : -1;
+		} catch (NumberFormatException e) {
+			return -1;
 		}
 	}
 } // class CircuitTracer
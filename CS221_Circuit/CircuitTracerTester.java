@@ -2,6 +2,8 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.Scanner;
 import java.util.concurrent.ExecutorService;
@@ -31,15 +33,56 @@ public class CircuitTracerTester {
 	// command line arguments for CircuitTracer
 	private static final String STACK = "-s";
 	private static final String QUEUE = "-q";
+	private static final String PACKED = "-f";
+	private static final String DAG = "-d";
+	private static final String COUNT = "-n";
+	private static final String ASTAR = "-a";
+	private static final String BIDIRECTIONAL = "-b";
+	private static final String FIRST_ONLY = "-1";
+	private static final String THREADS = "-p";
+	private static final String TABLE = "-x";
+	private static final String TRACES = "-t";
+	private static final String TIME_LIMIT = "-e";
+	private static final String STATE_LIMIT = "-k";
+	private static final String BRANCH_AND_BOUND = "-r";
+	private static final String SEED_BOUND = "-u";
+	private static final String JUMP_POINT = "-j";
+	private static final String OUTPUT_DIR = "-o";
+	private static final String WORKERS = "-w";
+	private static final String VERBOSE = "-v";
+	private static final String METRICS = "-m";
 	private static final String CONSOLE = "-c";
+	private static final String STREAM = "-l";
 	private static final String GUI = "-g";
 	private static final String INVALID_OPTION = "-z";
 
 	// bogus file name
 	private static final String NO_SUCH = "noSuchFile";
 
+	// list of every test board for batch runs
+	private static final String BATCH_FILENAME = "boards.txt";
+
+	// file for search metrics written as JSON
+	private static final String METRICS_FILENAME = "metrics.json";
+
+	// lines -v prints after a -s or -q search
+	private static final String[] SEARCH_METRICS = { "States created: \\d+", "States retrieved: \\d+",
+			"Peak storage size: \\d+", "Storage resizes: \\d+", "Solutions found: \\d+", "Solutions discarded: \\d+",
+			"Duplicate states dropped: n/a", "Partial result: no", "Time to parse: .* ms, \\d+ bytes allocated",
+			"Time to search: .* ms, \\d+ bytes allocated", "Time to output: .* ms, \\d+ bytes allocated" };
+
+	// line printed after the paths of a search stopped by -k
+	private static final String PARTIAL_NOTE = "Search stopped early \\(states limit reached\\); "
+			+ "these are the best paths found so far\\.";
+
+	// JSON -m writes after a -s search, after one stopped by -k and after a -n count
+	private static final String SEARCH_METRICS_JSON = "\\{\"statesCreated\":\\d+,.*\"duplicatesDropped\":null,"
+			+ ".*\"phases\":\\{.*\\}\\}";
+	private static final String PARTIAL_METRICS_JSON = "\\{.*\"partial\":true,\"stoppedBy\":\"states\",.*\\}";
+	private static final String COUNT_METRICS_JSON = "\\{\"statesCreated\":null,.*\"phases\":\\{.*\\}\\}";
+
 	// tracking number of tests and test results
-	private final int EXPECTED_TOTAL_TESTS = 86;
+	private final int EXPECTED_TOTAL_TESTS = 548;
 	private int totalTests;
 	private int passes = 0;
 	private int failures = 0;
@@ -330,6 +373,472 @@ public class CircuitTracerTester {
 			e.printStackTrace();
 		}
 
+		// CircuitTracer Packed BFS Tests
+		// - -f must report exactly the paths -s and -q report
+		System.out.println("******************************");
+		System.out.println("CircuitTracer Packed BFS Tests");
+		System.out.println("******************************\n");
+		try {
+			printTest("java CircuitTracer -f -c " + VALID_1_FILENAME,
+					testCircuitTracerValidFileCmdLine(PACKED, CONSOLE, VALID_1_FILENAME, VALID_1_SOLUTIONS));
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				printTest("CircuitTracer({\"-f\", \"-c\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerValidFile(PACKED, CONSOLE, VALID_FILENAMES[i], VALID_SOLUTIONS[i]));
+			}
+			printTest("java CircuitTracer -f -c " + INVALID_1_FILENAME,
+					testCircuitTracerInvalidFileCmdLine(PACKED, CONSOLE, INVALID_1_FILENAME));
+			for (String fileName : INVALID_FILENAMES) {
+				printTest("CircuitTracer({\"-f\", \"-c\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFile(PACKED, CONSOLE, fileName));
+			}
+			printTest("java CircuitTracer -f " + VALID_1_FILENAME, testCircuitTracerArgs(PACKED, VALID_1_FILENAME));
+			printTest("java CircuitTracer -f -c -z " + VALID_1_FILENAME,
+					testCircuitTracerArgs(PACKED, CONSOLE, INVALID_OPTION, VALID_1_FILENAME));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE CIRCUITTRACER PACKED BFS TESTS\n");
+			e.printStackTrace();
+		}
+
+		// CircuitTracer Shortest Path DAG Tests
+		// - -d must report exactly the paths -s and -q report
+		System.out.println("*************************************");
+		System.out.println("CircuitTracer Shortest Path DAG Tests");
+		System.out.println("*************************************\n");
+		try {
+			printTest("java CircuitTracer -d -c " + VALID_1_FILENAME,
+					testCircuitTracerValidFileCmdLine(DAG, CONSOLE, VALID_1_FILENAME, VALID_1_SOLUTIONS));
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				printTest("CircuitTracer({\"-d\", \"-c\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerValidFile(DAG, CONSOLE, VALID_FILENAMES[i], VALID_SOLUTIONS[i]));
+			}
+			printTest("java CircuitTracer -d -c " + INVALID_1_FILENAME,
+					testCircuitTracerInvalidFileCmdLine(DAG, CONSOLE, INVALID_1_FILENAME));
+			for (String fileName : INVALID_FILENAMES) {
+				printTest("CircuitTracer({\"-d\", \"-c\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFile(DAG, CONSOLE, fileName));
+			}
+			printTest("java CircuitTracer -d " + VALID_1_FILENAME, testCircuitTracerArgs(DAG, VALID_1_FILENAME));
+			printTest("java CircuitTracer -d -c -z " + VALID_1_FILENAME,
+					testCircuitTracerArgs(DAG, CONSOLE, INVALID_OPTION, VALID_1_FILENAME));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE CIRCUITTRACER SHORTEST PATH DAG TESTS\n");
+			e.printStackTrace();
+		}
+
+		// CircuitTracer Path Count and Streamed Output Tests
+		// - -n reports the shortest length and number of paths, -l prints
+		// the same paths as -c and is only for -d
+		System.out.println("*************************************************");
+		System.out.println("CircuitTracer Path Count and Streamed Output Tests");
+		System.out.println("*************************************************\n");
+		try {
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				printTest("CircuitTracer({\"-n\", \"-c\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerOutput(countReport(VALID_SOLUTIONS[i]), COUNT, CONSOLE, VALID_FILENAMES[i]));
+			}
+			for (String fileName : INVALID_FILENAMES) {
+				printTest("CircuitTracer({\"-n\", \"-c\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFile(COUNT, CONSOLE, fileName));
+			}
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				printTest("CircuitTracer({\"-d\", \"-l\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerValidFile(DAG, STREAM, VALID_FILENAMES[i], VALID_SOLUTIONS[i]));
+			}
+			for (String fileName : INVALID_FILENAMES) {
+				printTest("CircuitTracer({\"-d\", \"-l\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFile(DAG, STREAM, fileName));
+			}
+			printTest("java CircuitTracer -s -l " + VALID_1_FILENAME,
+					testCircuitTracerArgs(STACK, STREAM, VALID_1_FILENAME));
+			printTest("java CircuitTracer -q -l " + VALID_1_FILENAME,
+					testCircuitTracerArgs(QUEUE, STREAM, VALID_1_FILENAME));
+			printTest("java CircuitTracer -f -l " + VALID_1_FILENAME,
+					testCircuitTracerArgs(PACKED, STREAM, VALID_1_FILENAME));
+			printTest("java CircuitTracer -n -l " + VALID_1_FILENAME,
+					testCircuitTracerArgs(COUNT, STREAM, VALID_1_FILENAME));
+			printTest("java CircuitTracer -n -c -z " + VALID_1_FILENAME,
+					testCircuitTracerArgs(COUNT, CONSOLE, INVALID_OPTION, VALID_1_FILENAME));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE CIRCUITTRACER PATH COUNT AND STREAMED OUTPUT TESTS\n");
+			e.printStackTrace();
+		}
+
+		// CircuitTracer A* and Bidirectional BFS Tests
+		// - -a and -b report exactly the paths -s and -q report, or any
+		// one of them with -1
+		System.out.println("*********************************************");
+		System.out.println("CircuitTracer A* and Bidirectional BFS Tests");
+		System.out.println("*********************************************\n");
+		try {
+			printTest("java CircuitTracer -a -c " + VALID_1_FILENAME,
+					testCircuitTracerValidFileCmdLine(ASTAR, CONSOLE, VALID_1_FILENAME, VALID_1_SOLUTIONS));
+			printTest("java CircuitTracer -b -c " + VALID_1_FILENAME,
+					testCircuitTracerValidFileCmdLine(BIDIRECTIONAL, CONSOLE, VALID_1_FILENAME, VALID_1_SOLUTIONS));
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				printTest("CircuitTracer({\"-a\", \"-c\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerValidFile(ASTAR, CONSOLE, VALID_FILENAMES[i], VALID_SOLUTIONS[i]));
+				printTest("CircuitTracer({\"-b\", \"-c\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerValidFile(BIDIRECTIONAL, CONSOLE, VALID_FILENAMES[i], VALID_SOLUTIONS[i]));
+				printTest("CircuitTracer({\"-a\", \"-c\", \"-1\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerOnePath(VALID_SOLUTIONS[i], ASTAR, CONSOLE, FIRST_ONLY, VALID_FILENAMES[i]));
+				printTest("CircuitTracer({\"-b\", \"-c\", \"-1\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerOnePath(VALID_SOLUTIONS[i], BIDIRECTIONAL, CONSOLE, FIRST_ONLY,
+								VALID_FILENAMES[i]));
+			}
+			for (String fileName : INVALID_FILENAMES) {
+				printTest("CircuitTracer({\"-a\", \"-c\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFile(ASTAR, CONSOLE, fileName));
+				printTest("CircuitTracer({\"-b\", \"-c\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFile(BIDIRECTIONAL, CONSOLE, fileName));
+			}
+			printTest("java CircuitTracer -s -c -1 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(STACK, CONSOLE, FIRST_ONLY, VALID_1_FILENAME));
+			printTest("java CircuitTracer -q -c -1 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(QUEUE, CONSOLE, FIRST_ONLY, VALID_1_FILENAME));
+			printTest("java CircuitTracer -d -c -1 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(DAG, CONSOLE, FIRST_ONLY, VALID_1_FILENAME));
+			printTest("java CircuitTracer -a -l " + VALID_1_FILENAME,
+					testCircuitTracerArgs(ASTAR, STREAM, VALID_1_FILENAME));
+			printTest("java CircuitTracer -b -l " + VALID_1_FILENAME,
+					testCircuitTracerArgs(BIDIRECTIONAL, STREAM, VALID_1_FILENAME));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE CIRCUITTRACER A* AND BIDIRECTIONAL BFS TESTS\n");
+			e.printStackTrace();
+		}
+
+		// CircuitTracer Parallel Search Tests
+		// - -p splits a -s or -q search over threads without changing its paths
+		System.out.println("***********************************");
+		System.out.println("CircuitTracer Parallel Search Tests");
+		System.out.println("***********************************\n");
+		try {
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				printTest("CircuitTracer({\"-s\", \"-c\", \"-p\", \"2\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerPaths(VALID_SOLUTIONS[i], STACK, CONSOLE, THREADS, "2", VALID_FILENAMES[i]));
+				printTest("CircuitTracer({\"-q\", \"-c\", \"-p\", \"4\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerPaths(VALID_SOLUTIONS[i], QUEUE, CONSOLE, THREADS, "4", VALID_FILENAMES[i]));
+			}
+			for (String fileName : INVALID_FILENAMES) {
+				printTest("CircuitTracer({\"-q\", \"-c\", \"-p\", \"2\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFileArgs(QUEUE, CONSOLE, THREADS, "2", fileName));
+			}
+			printTest("java CircuitTracer -f -c -p 2 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(PACKED, CONSOLE, THREADS, "2", VALID_1_FILENAME));
+			printTest("java CircuitTracer -d -c -p 2 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(DAG, CONSOLE, THREADS, "2", VALID_1_FILENAME));
+			printTest("java CircuitTracer -a -c -p 2 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(ASTAR, CONSOLE, THREADS, "2", VALID_1_FILENAME));
+			printTest("java CircuitTracer -s -c -p 0 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(STACK, CONSOLE, THREADS, "0", VALID_1_FILENAME));
+			printTest("java CircuitTracer -q -c -p two " + VALID_1_FILENAME,
+					testCircuitTracerArgs(QUEUE, CONSOLE, THREADS, "two", VALID_1_FILENAME));
+			printTest("java CircuitTracer -q -c -p " + VALID_1_FILENAME,
+					testCircuitTracerArgs(QUEUE, CONSOLE, THREADS, VALID_1_FILENAME));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE CIRCUITTRACER PARALLEL SEARCH TESTS\n");
+			e.printStackTrace();
+		}
+
+		// CircuitTracer Branch-and-Bound Tests
+		// - -r reports exactly the paths -s and -q report, with or without -u
+		System.out.println("*************************************");
+		System.out.println("CircuitTracer Branch-and-Bound Tests");
+		System.out.println("*************************************\n");
+		try {
+			printTest("java CircuitTracer -r -c " + VALID_1_FILENAME,
+					testCircuitTracerValidFileCmdLine(BRANCH_AND_BOUND, CONSOLE, VALID_1_FILENAME, VALID_1_SOLUTIONS));
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				printTest("CircuitTracer({\"-r\", \"-c\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerValidFile(BRANCH_AND_BOUND, CONSOLE, VALID_FILENAMES[i], VALID_SOLUTIONS[i]));
+				printTest("CircuitTracer({\"-r\", \"-c\", \"-u\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerPaths(VALID_SOLUTIONS[i], BRANCH_AND_BOUND, CONSOLE, SEED_BOUND,
+								VALID_FILENAMES[i]));
+			}
+			for (String fileName : INVALID_FILENAMES) {
+				printTest("CircuitTracer({\"-r\", \"-c\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFile(BRANCH_AND_BOUND, CONSOLE, fileName));
+			}
+			printTest("java CircuitTracer -s -c -u " + VALID_1_FILENAME,
+					testCircuitTracerArgs(STACK, CONSOLE, SEED_BOUND, VALID_1_FILENAME));
+			printTest("java CircuitTracer -q -c -u " + VALID_1_FILENAME,
+					testCircuitTracerArgs(QUEUE, CONSOLE, SEED_BOUND, VALID_1_FILENAME));
+			printTest("java CircuitTracer -a -c -u " + VALID_1_FILENAME,
+					testCircuitTracerArgs(ASTAR, CONSOLE, SEED_BOUND, VALID_1_FILENAME));
+			printTest("java CircuitTracer -r -l " + VALID_1_FILENAME,
+					testCircuitTracerArgs(BRANCH_AND_BOUND, STREAM, VALID_1_FILENAME));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE CIRCUITTRACER BRANCH-AND-BOUND TESTS\n");
+			e.printStackTrace();
+		}
+
+		// CircuitTracer Batch Tests
+		// - -o writes each board's console output to its own file in a
+		// directory, with -w workers, and only for -c
+		System.out.println("*************************");
+		System.out.println("CircuitTracer Batch Tests");
+		System.out.println("*************************\n");
+		try {
+			printTest("CircuitTracer({\"-q\", \"-c\", \"-o\", \"batchq\", \"-w\", \"2\" \"" + BATCH_FILENAME
+					+ "\"})", testCircuitTracerBatch("batchq", QUEUE, CONSOLE, OUTPUT_DIR, "batchq", WORKERS, "2",
+							BATCH_FILENAME));
+			printTest("CircuitTracer({\"-r\", \"-c\", \"-o\", \"batchr\" \"" + BATCH_FILENAME + "\"})",
+					testCircuitTracerBatch("batchr", BRANCH_AND_BOUND, CONSOLE, OUTPUT_DIR, "batchr", BATCH_FILENAME));
+			printTest("java CircuitTracer -s -g -o batch " + BATCH_FILENAME,
+					testCircuitTracerArgs(STACK, GUI, OUTPUT_DIR, "batch", BATCH_FILENAME));
+			printTest("java CircuitTracer -d -l -o batch " + BATCH_FILENAME,
+					testCircuitTracerArgs(DAG, STREAM, OUTPUT_DIR, "batch", BATCH_FILENAME));
+			printTest("java CircuitTracer -n -c -o batch " + BATCH_FILENAME,
+					testCircuitTracerArgs(COUNT, CONSOLE, OUTPUT_DIR, "batch", BATCH_FILENAME));
+			printTest("java CircuitTracer -q -c -o " + BATCH_FILENAME,
+					testCircuitTracerArgs(QUEUE, CONSOLE, OUTPUT_DIR, BATCH_FILENAME));
+			printTest("java CircuitTracer -q -c -o batch -w 0 " + BATCH_FILENAME,
+					testCircuitTracerArgs(QUEUE, CONSOLE, OUTPUT_DIR, "batch", WORKERS, "0", BATCH_FILENAME));
+			printTest("java CircuitTracer -s -c -w 2 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(STACK, CONSOLE, WORKERS, "2", VALID_1_FILENAME));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE CIRCUITTRACER BATCH TESTS\n");
+			e.printStackTrace();
+		}
+
+		// CircuitTracer Search Metrics Tests
+		// - -v prints metrics after the results and -m writes them to a
+		// JSON file, neither of them in batch mode
+		System.out.println("**********************************");
+		System.out.println("CircuitTracer Search Metrics Tests");
+		System.out.println("**********************************\n");
+		try {
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				printTest("CircuitTracer({\"-q\", \"-c\", \"-v\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerOutput(SEARCH_METRICS, QUEUE, CONSOLE, VERBOSE, VALID_FILENAMES[i]));
+				printTest("CircuitTracer({\"-s\", \"-c\", \"-m\", \"" + METRICS_FILENAME + "\" \"" + VALID_FILENAMES[i]
+						+ "\"})", testCircuitTracerPaths(VALID_SOLUTIONS[i], STACK, CONSOLE, METRICS, METRICS_FILENAME,
+								VALID_FILENAMES[i]));
+			}
+			for (String fileName : INVALID_FILENAMES) {
+				printTest("CircuitTracer({\"-q\", \"-c\", \"-v\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFileArgs(QUEUE, CONSOLE, VERBOSE, fileName));
+			}
+			printTest("CircuitTracer({\"-n\", \"-c\", \"-v\" \"" + VALID_4_FILENAME + "\"})",
+					testCircuitTracerOutput(new String[] { "Shortest path length: 11", "States created: n/a",
+							"Duplicate states dropped: n/a" }, COUNT, CONSOLE, VERBOSE, VALID_4_FILENAME));
+			printTest("CircuitTracer -s -c -m " + METRICS_FILENAME + " " + VALID_4_FILENAME + " JSON",
+					testCircuitTracerMetricsFile(SEARCH_METRICS_JSON, STACK, CONSOLE, METRICS, METRICS_FILENAME,
+							VALID_4_FILENAME));
+			printTest("CircuitTracer -n -c -m " + METRICS_FILENAME + " " + VALID_4_FILENAME + " JSON",
+					testCircuitTracerMetricsFile(COUNT_METRICS_JSON, COUNT, CONSOLE, METRICS, METRICS_FILENAME,
+							VALID_4_FILENAME));
+			printTest("java CircuitTracer -q -c -v -o batch " + BATCH_FILENAME,
+					testCircuitTracerArgs(QUEUE, CONSOLE, VERBOSE, OUTPUT_DIR, "batch", BATCH_FILENAME));
+			printTest("java CircuitTracer -q -c -m " + METRICS_FILENAME + " -o batch " + BATCH_FILENAME,
+					testCircuitTracerArgs(QUEUE, CONSOLE, METRICS, METRICS_FILENAME, OUTPUT_DIR, "batch",
+							BATCH_FILENAME));
+			printTest("java CircuitTracer -q -c -m " + VALID_1_FILENAME,
+					testCircuitTracerArgs(QUEUE, CONSOLE, METRICS, VALID_1_FILENAME));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE CIRCUITTRACER SEARCH METRICS TESTS\n");
+			e.printStackTrace();
+		}
+
+		// CircuitTracer Jump Point Search Tests
+		// - -j reports one of the shortest paths -s and -q report
+		System.out.println("**************************************");
+		System.out.println("CircuitTracer Jump Point Search Tests");
+		System.out.println("**************************************\n");
+		try {
+			// valid2 has only one shortest path
+			printTest("java CircuitTracer -j -c " + VALID_2_FILENAME,
+					testCircuitTracerValidFileCmdLine(JUMP_POINT, CONSOLE, VALID_2_FILENAME, VALID_2_SOLUTIONS));
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				printTest("CircuitTracer({\"-j\", \"-c\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerOnePath(VALID_SOLUTIONS[i], JUMP_POINT, CONSOLE, VALID_FILENAMES[i]));
+			}
+			for (String fileName : INVALID_FILENAMES) {
+				printTest("CircuitTracer({\"-j\", \"-c\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFile(JUMP_POINT, CONSOLE, fileName));
+			}
+			printTest("java CircuitTracer -j -l " + VALID_1_FILENAME,
+					testCircuitTracerArgs(JUMP_POINT, STREAM, VALID_1_FILENAME));
+			printTest("java CircuitTracer -j -c -1 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(JUMP_POINT, CONSOLE, FIRST_ONLY, VALID_1_FILENAME));
+			printTest("java CircuitTracer -j -c -p 2 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(JUMP_POINT, CONSOLE, THREADS, "2", VALID_1_FILENAME));
+			printTest("java CircuitTracer -j -c -z " + VALID_1_FILENAME,
+					testCircuitTracerArgs(JUMP_POINT, CONSOLE, INVALID_OPTION, VALID_1_FILENAME));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE CIRCUITTRACER JUMP POINT SEARCH TESTS\n");
+			e.printStackTrace();
+		}
+
+		// CircuitTracer Transposition Table Tests
+		// - -x drops repeated -s and -q states without changing their paths,
+		// however small the table
+		System.out.println("****************************************");
+		System.out.println("CircuitTracer Transposition Table Tests");
+		System.out.println("****************************************\n");
+		try {
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				printTest("CircuitTracer({\"-s\", \"-c\", \"-x\", \"1000\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerPaths(VALID_SOLUTIONS[i], STACK, CONSOLE, TABLE, "1000", VALID_FILENAMES[i]));
+				printTest("CircuitTracer({\"-q\", \"-c\", \"-x\", \"4\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerPaths(VALID_SOLUTIONS[i], QUEUE, CONSOLE, TABLE, "4", VALID_FILENAMES[i]));
+			}
+			for (String fileName : INVALID_FILENAMES) {
+				printTest("CircuitTracer({\"-s\", \"-c\", \"-x\", \"100\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFileArgs(STACK, CONSOLE, TABLE, "100", fileName));
+			}
+			printTest("CircuitTracer({\"-q\", \"-c\", \"-x\", \"1000\", \"-v\" \"" + VALID_4_FILENAME + "\"})",
+					testCircuitTracerOutput(new String[] { "Duplicate states dropped: \\d+" }, QUEUE, CONSOLE, TABLE,
+							"1000", VERBOSE, VALID_4_FILENAME));
+			printTest("CircuitTracer({\"-q\", \"-c\", \"-x\", \"100\", \"-o\", \"batchx\" \"" + BATCH_FILENAME
+					+ "\"})", testCircuitTracerBatch("batchx", QUEUE, CONSOLE, TABLE, "100", OUTPUT_DIR, "batchx",
+							BATCH_FILENAME));
+			printTest("java CircuitTracer -a -c -x 10 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(ASTAR, CONSOLE, TABLE, "10", VALID_1_FILENAME));
+			printTest("java CircuitTracer -d -c -x 10 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(DAG, CONSOLE, TABLE, "10", VALID_1_FILENAME));
+			printTest("java CircuitTracer -s -c -p 2 -x 10 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(STACK, CONSOLE, THREADS, "2", TABLE, "10", VALID_1_FILENAME));
+			printTest("java CircuitTracer -s -c -x 0 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(STACK, CONSOLE, TABLE, "0", VALID_1_FILENAME));
+			printTest("java CircuitTracer -q -c -x " + VALID_1_FILENAME,
+					testCircuitTracerArgs(QUEUE, CONSOLE, TABLE, VALID_1_FILENAME));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE CIRCUITTRACER TRANSPOSITION TABLE TESTS\n");
+			e.printStackTrace();
+		}
+
+		// CircuitTracer Trace Output Tests
+		// - -t prints the row,col of each trace of a path, one path per
+		// line, in place of the boards
+		System.out.println("********************************");
+		System.out.println("CircuitTracer Trace Output Tests");
+		System.out.println("********************************\n");
+		try {
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				printTest("CircuitTracer({\"-s\", \"-c\", \"-t\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerTraces(VALID_SOLUTIONS[i], STACK, CONSOLE, TRACES, VALID_FILENAMES[i]));
+				printTest("CircuitTracer({\"-d\", \"-l\", \"-t\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerTraces(VALID_SOLUTIONS[i], DAG, STREAM, TRACES, VALID_FILENAMES[i]));
+			}
+			for (String fileName : INVALID_FILENAMES) {
+				printTest("CircuitTracer({\"-q\", \"-c\", \"-t\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFileArgs(QUEUE, CONSOLE, TRACES, fileName));
+			}
+			printTest("java CircuitTracer -s -g -t " + VALID_1_FILENAME,
+					testCircuitTracerArgs(STACK, GUI, TRACES, VALID_1_FILENAME));
+			printTest("java CircuitTracer -n -c -t " + VALID_1_FILENAME,
+					testCircuitTracerArgs(COUNT, CONSOLE, TRACES, VALID_1_FILENAME));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE CIRCUITTRACER TRACE OUTPUT TESTS\n");
+			e.printStackTrace();
+		}
+
+		// CircuitTracer Search Budget Tests
+		// - -e and -k stop a -s, -q, -a or -r search early and say so, and
+		// change nothing when the search finishes within them
+		System.out.println("*********************************");
+		System.out.println("CircuitTracer Search Budget Tests");
+		System.out.println("*********************************\n");
+		try {
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				printTest("CircuitTracer({\"-s\", \"-c\", \"-e\", \"10000\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerPaths(VALID_SOLUTIONS[i], STACK, CONSOLE, TIME_LIMIT, "10000",
+								VALID_FILENAMES[i]));
+				printTest("CircuitTracer({\"-q\", \"-c\", \"-k\", \"1000000\" \"" + VALID_FILENAMES[i] + "\"})",
+						testCircuitTracerPaths(VALID_SOLUTIONS[i], QUEUE, CONSOLE, STATE_LIMIT, "1000000",
+								VALID_FILENAMES[i]));
+			}
+			printTest("CircuitTracer({\"-a\", \"-c\", \"-k\", \"1000000\" \"" + VALID_4_FILENAME + "\"})",
+					testCircuitTracerPaths(VALID_4_SOLUTIONS, ASTAR, CONSOLE, STATE_LIMIT, "1000000",
+							VALID_4_FILENAME));
+			printTest("CircuitTracer({\"-r\", \"-c\", \"-e\", \"10000\" \"" + VALID_4_FILENAME + "\"})",
+					testCircuitTracerPaths(VALID_4_SOLUTIONS, BRANCH_AND_BOUND, CONSOLE, TIME_LIMIT, "10000",
+							VALID_4_FILENAME));
+			printTest("CircuitTracer({\"-q\", \"-c\", \"-k\", \"1\" \"" + VALID_4_FILENAME + "\"})",
+					testCircuitTracerOutput(new String[] { PARTIAL_NOTE }, QUEUE, CONSOLE, STATE_LIMIT, "1",
+							VALID_4_FILENAME));
+			printTest("CircuitTracer({\"-s\", \"-c\", \"-k\", \"1\", \"-v\" \"" + VALID_4_FILENAME + "\"})",
+					testCircuitTracerOutput(new String[] { PARTIAL_NOTE, "Partial result: yes, stopped by states" },
+							STACK, CONSOLE, STATE_LIMIT, "1", VERBOSE, VALID_4_FILENAME));
+			printTest("CircuitTracer -s -c -k 1 -m " + METRICS_FILENAME + " " + VALID_4_FILENAME + " JSON",
+					testCircuitTracerMetricsFile(PARTIAL_METRICS_JSON, STACK, CONSOLE, STATE_LIMIT, "1", METRICS,
+							METRICS_FILENAME, VALID_4_FILENAME));
+			for (String fileName : INVALID_FILENAMES) {
+				printTest("CircuitTracer({\"-q\", \"-c\", \"-e\", \"1000\" \"" + fileName + "\"})",
+						testCircuitTracerInvalidFileArgs(QUEUE, CONSOLE, TIME_LIMIT, "1000", fileName));
+			}
+			printTest("CircuitTracer({\"-q\", \"-c\", \"-k\", \"1000000\", \"-o\", \"batchk\" \"" + BATCH_FILENAME
+					+ "\"})", testCircuitTracerBatch("batchk", QUEUE, CONSOLE, STATE_LIMIT, "1000000", OUTPUT_DIR,
+							"batchk", BATCH_FILENAME));
+			printTest("java CircuitTracer -d -c -e 100 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(DAG, CONSOLE, TIME_LIMIT, "100", VALID_1_FILENAME));
+			printTest("java CircuitTracer -f -c -k 10 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(PACKED, CONSOLE, STATE_LIMIT, "10", VALID_1_FILENAME));
+			printTest("java CircuitTracer -b -c -k 10 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(BIDIRECTIONAL, CONSOLE, STATE_LIMIT, "10", VALID_1_FILENAME));
+			printTest("java CircuitTracer -j -c -e 10 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(JUMP_POINT, CONSOLE, TIME_LIMIT, "10", VALID_1_FILENAME));
+			printTest("java CircuitTracer -s -c -e 0 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(STACK, CONSOLE, TIME_LIMIT, "0", VALID_1_FILENAME));
+			printTest("java CircuitTracer -s -c -k -5 " + VALID_1_FILENAME,
+					testCircuitTracerArgs(STACK, CONSOLE, STATE_LIMIT, "-5", VALID_1_FILENAME));
+			printTest("java CircuitTracer -q -c -e " + VALID_1_FILENAME,
+					testCircuitTracerArgs(QUEUE, CONSOLE, TIME_LIMIT, VALID_1_FILENAME));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE CIRCUITTRACER SEARCH BUDGET TESTS\n");
+			e.printStackTrace();
+		}
+
+		// IncrementalTracer Tests
+		// - every resolve must match a ShortestPathDag built from scratch
+		System.out.println("***************************");
+		System.out.println("IncrementalTracer Tests");
+		System.out.println("***************************\n");
+		try {
+			// (1,0) is on the only shortest route of valid2
+			printTest("IncrementalTracer close (1,0) on " + VALID_2_FILENAME,
+					testIncrementalTracer(VALID_2_FILENAME, new CellEdit[] { new CellEdit(1, 0, 'X') }));
+			printTest("IncrementalTracer close, reopen (1,0) on " + VALID_2_FILENAME,
+					testIncrementalTracer(VALID_2_FILENAME, new CellEdit[] { new CellEdit(1, 0, 'X') },
+							new CellEdit[] { new CellEdit(1, 0, 'O') }));
+			printTest("IncrementalTracer edit batch on " + VALID_4_FILENAME,
+					testIncrementalTracer(VALID_4_FILENAME,
+							new CellEdit[] { new CellEdit(2, 3, 'X'), new CellEdit(3, 5, 'X'), new CellEdit(7, 5, 'X'),
+									new CellEdit(5, 5, 'O'), new CellEdit(4, 6, 'O') },
+							new CellEdit[] { new CellEdit(7, 5, 'O'), new CellEdit(2, 4, 'X') }));
+			printTest("IncrementalTracer undo in batch on " + VALID_2_FILENAME,
+					testIncrementalTracer(VALID_2_FILENAME, new CellEdit[] { new CellEdit(1, 0, 'X'),
+							new CellEdit(1, 1, 'O'), new CellEdit(1, 0, 'O') }));
+			printTest("IncrementalTracer edit '1' on " + VALID_2_FILENAME,
+					testIncrementalTracerInvalidEdit(VALID_2_FILENAME, new CellEdit(0, 0, 'X')));
+			printTest("IncrementalTracer edit then '2' on " + VALID_2_FILENAME,
+					testIncrementalTracerInvalidEdit(VALID_2_FILENAME, new CellEdit(1, 0, 'X'),
+							new CellEdit(2, 1, 'O')));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE INCREMENTALTRACER TESTS\n");
+			e.printStackTrace();
+		}
+
+		// NetRouter Tests
+		// - every net routes on disjoint traces, and a CircuitBoard file is
+		// routed as one net from '1' to '2'
+		System.out.println("***************");
+		System.out.println("NetRouter Tests");
+		System.out.println("***************\n");
+		try {
+			printTest("NetRouter rip-up on " + NETS_1_FILENAME, testNetRouter(NETS_1_FILENAME, 2, 12, true));
+			printTest("NetRouter single pair on " + VALID_1_FILENAME, testNetRouter(VALID_1_FILENAME, 1, 5, false));
+			printTest("NetRouter single pair on " + VALID_4_FILENAME, testNetRouter(VALID_4_FILENAME, 1, 11, false));
+			printTest("NetRouter single pair on " + VALID_10_FILENAME, testNetRouter(VALID_10_FILENAME, 0, 0, false));
+			BoardConverter.write(new CircuitBoard(VALID_4_FILENAME), BoardConverter.Format.dense,
+					new File(VALID_4_DENSE_FILENAME));
+			printTest("NetRouter single pair on " + VALID_4_DENSE_FILENAME,
+					testNetRouter(VALID_4_DENSE_FILENAME, 1, 11, false));
+		} catch (Exception e) {
+			System.out.printf("***UNABLE TO RUN/COMPLETE NETROUTER TESTS\n");
+			e.printStackTrace();
+		}
+
 		// CircuitTracer GUI Option Test
 		// - either launches GUI or exits with unsupported option message
 		System.out.println("*******************************");
@@ -932,6 +1441,523 @@ public class CircuitTracerTester {
 		return result == Result.NoException;
 	}
 
+	/////////////////////////////////////////
+	// XXX CircuitTracer Option Output Tests
+	/////////////////////////////////////////
+
+	/**
+	 * Run CircuitTracer in this JVM with its console output redirected to a
+	 * file, as testCircuitTracerValidFile does, allowing TIMEOUT seconds for
+	 * it to finish. An exception thrown by CircuitTracer is printed to the
+	 * file so the test reading it fails.
+	 * 
+	 * @param outfile file to receive the console output
+	 * @param args    command line arguments for CircuitTracer
+	 * @throws FileNotFoundException if outfile cannot be written
+	 */
+	private void runCircuitTracer(File outfile, String... args) throws FileNotFoundException {
+		// remember console output streams for stdout and stderr
+		PrintStream consoleOut = System.out;
+		PrintStream consoleErr = System.err;
+		PrintStream fileOut = new PrintStream(outfile);
+		System.setOut(fileOut);
+		System.setErr(fileOut);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		executor.submit(() -> {
+			try {
+				new CircuitTracer(args);
+			} catch (RuntimeException e) {
+				e.printStackTrace(fileOut);
+			}
+		});
+		try {
+			executor.shutdown();
+			executor.awaitTermination(TIMEOUT, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			// reset console stdout and stderr
+			System.setOut(consoleOut);
+			System.setErr(consoleErr);
+			if (!executor.isTerminated()) {
+				System.out.println("cancelling unfinished CircuitTracer()");
+			}
+			executor.shutdownNow();
+			fileOut.close();
+		}
+	}
+
+	/**
+	 * Confirm CircuitTracer prints exactly the expected solutions for the
+	 * given arguments.
+	 * 
+	 * @param solutions every shortest path of the board
+	 * @param args      command line arguments, input file last
+	 * @return true if test passes, else false
+	 */
+	private boolean testCircuitTracerPaths(char[][][] solutions, String... args) {
+		totalTests += 1;
+		Result result;
+		System.out.printf("Testing CircuitTracer({\"%s\"})\n", String.join("\" \"", args));
+		try {
+			File outfile = new File(args[args.length - 1] + ".out");
+			runCircuitTracer(outfile, args);
+			int expectedRows = (solutions.length > 0 ? solutions[0].length : 0);
+			int expectedCols = (expectedRows > 0 ? solutions[0][0].length : 0);
+			char[][][] outputSolutions = readOutFile(outfile, solutions.length, expectedRows, expectedCols);
+			result = Result.ValidOutput;
+			for (int solution = 0; solution < solutions.length; solution++) {
+				if (!findSolution(solutions[solution], outputSolutions)) {
+					result = Result.InvalidOutput;
+				}
+			}
+			if (result == Result.ValidOutput) {
+				System.out.println("Output matches expected content and format.");
+			} else {
+				System.out.println("Output does NOT match expected content and format.");
+			}
+		} catch (InvalidOutputException e) {
+			result = Result.InvalidOutput;
+			System.out.println("Output does NOT match expected content and format.");
+		} catch (Exception e) {
+			result = Result.UnexpectedException;
+			e.printStackTrace(System.out);
+		}
+		return result == Result.ValidOutput;
+	}
+
+	/**
+	 * Confirm CircuitTracer reports the problem with an invalid input file
+	 * briefly and exits cleanly when run with the given arguments.
+	 * 
+	 * @param args command line arguments, input file last
+	 * @return true if test passes, else false
+	 */
+	private boolean testCircuitTracerInvalidFileArgs(String... args) {
+		totalTests += 1;
+		Result result;
+		String fileName = args[args.length - 1];
+		System.out.printf("Testing CircuitTracer({\"%s\"})\n", String.join("\" \"", args));
+		System.out.printf("Expecting a report on problem with %s and clean program exit.\n", fileName);
+		try {
+			File outfile = new File(fileName + ".out");
+			runCircuitTracer(outfile, args);
+			result = Result.NoException;
+			boolean includesExceptionName = false;
+			int lineCount = 0;
+			Scanner scan = new Scanner(outfile);
+			System.out.println("***begin output***");
+			while (scan.hasNextLine()) {
+				String line = scan.nextLine();
+				System.out.println(line);
+				if (line.contains("InvalidFileFormatException") || line.contains("FileNotFoundException")) {
+					includesExceptionName = true;
+				}
+				lineCount++;
+			}
+			System.out.println("***end output***");
+			scan.close();
+			if (!includesExceptionName) {
+				System.out.println("Output missing expected exception name.");
+				result = Result.InvalidOutput;
+			}
+			if (lineCount > 3) { // arbitrarily allowing for a couple lines, but not stack trace
+				System.out.println("Output exceeds expected brief descriptive exception message.");
+				result = Result.InvalidOutput;
+			}
+		} catch (Exception e) {
+			result = Result.UnexpectedException;
+			System.out.println("Unexpected exception crashed the program.");
+			e.printStackTrace(System.out);
+		}
+		return result == Result.NoException;
+	}
+
+	/**
+	 * Confirm CircuitTracer prints the traces of exactly the expected
+	 * solutions for the given arguments, each as one line of row,col pairs.
+	 * 
+	 * @param solutions every shortest path of the board
+	 * @param args      command line arguments, input file last
+	 * @return true if test passes, else false
+	 */
+	private boolean testCircuitTracerTraces(char[][][] solutions, String... args) {
+		totalTests += 1;
+		Result result;
+		String fileName = args[args.length - 1];
+		System.out.printf("Testing CircuitTracer({\"%s\"})\n", String.join("\" \"", args));
+		try {
+			File outfile = new File(fileName + ".out");
+			runCircuitTracer(outfile, args);
+			CircuitBoard board = new CircuitBoard(fileName);
+			ArrayList<char[][]> reported = new ArrayList<char[][]>();
+			result = Result.ValidOutput;
+			Scanner scan = new Scanner(outfile);
+			System.out.println("***begin output***");
+			while (scan.hasNextLine()) {
+				String line = scan.nextLine().trim();
+				System.out.println(line);
+				// each line is drawn onto a copy of the board to compare with the solutions
+				char[][] solution = new char[board.numRows()][board.numCols()];
+				for (int row = 0; row < board.numRows(); row++) {
+					for (int col = 0; col < board.numCols(); col++) {
+						solution[row][col] = board.charAt(row, col);
+					}
+				}
+				for (String trace : line.split(" ")) {
+					if (!trace.matches("\\d+,\\d+")) {
+						System.out.println("Invalid output: " + trace);
+						result = Result.InvalidOutput;
+						break;
+					}
+					String[] rowCol = trace.split(",");
+					int row = Integer.parseInt(rowCol[0]);
+					int col = Integer.parseInt(rowCol[1]);
+					if (row >= board.numRows() || col >= board.numCols() || solution[row][col] != 'O') {
+						System.out.println("Trace is not on an open position: " + trace);
+						result = Result.InvalidOutput;
+						break;
+					}
+					solution[row][col] = 'T';
+				}
+				reported.add(solution);
+			}
+			System.out.println("***end output***");
+			scan.close();
+			char[][][] outputSolutions = reported.toArray(new char[reported.size()][][]);
+			if (outputSolutions.length != solutions.length) {
+				System.out.println("Expected " + solutions.length + " paths, found " + outputSolutions.length + ".");
+				result = Result.InvalidOutput;
+			}
+			for (int solution = 0; solution < solutions.length; solution++) {
+				if (!findSolution(solutions[solution], outputSolutions)) {
+					result = Result.InvalidOutput;
+				}
+			}
+			if (result == Result.ValidOutput) {
+				System.out.println("Output matches expected content and format.");
+			} else {
+				System.out.println("Output does NOT match expected content and format.");
+			}
+		} catch (Exception e) {
+			result = Result.UnexpectedException;
+			e.printStackTrace(System.out);
+		}
+		return result == Result.ValidOutput;
+	}
+
+	/**
+	 * Confirm CircuitTracer prints exactly one of the expected solutions for
+	 * the given arguments, or nothing if there are none.
+	 * 
+	 * @param solutions every shortest path of the board
+	 * @param args      command line arguments, input file last
+	 * @return true if test passes, else false
+	 */
+	private boolean testCircuitTracerOnePath(char[][][] solutions, String... args) {
+		totalTests += 1;
+		Result result;
+		System.out.printf("Testing CircuitTracer({\"%s\"})\n", String.join("\" \"", args));
+		try {
+			File outfile = new File(args[args.length - 1] + ".out");
+			runCircuitTracer(outfile, args);
+			int expectedRows = (solutions.length > 0 ? solutions[0].length : 0);
+			int expectedCols = (expectedRows > 0 ? solutions[0][0].length : 0);
+			char[][][] outputSolutions = readOutFile(outfile, Math.min(solutions.length, 1), expectedRows,
+					expectedCols);
+			result = Result.ValidOutput;
+			for (char[][] reported : outputSolutions) {
+				if (!findSolution(reported, solutions)) {
+					result = Result.InvalidOutput;
+				}
+			}
+			if (result == Result.ValidOutput) {
+				System.out.println("Output matches expected content and format.");
+			} else {
+				System.out.println("Output does NOT match expected content and format.");
+			}
+		} catch (InvalidOutputException e) {
+			result = Result.InvalidOutput;
+			System.out.println("Output does NOT match expected content and format.");
+		} catch (Exception e) {
+			result = Result.UnexpectedException;
+			e.printStackTrace(System.out);
+		}
+		return result == Result.ValidOutput;
+	}
+
+	/**
+	 * Write BATCH_FILENAME listing every valid and invalid test board, run a
+	 * batch over it and confirm that each valid board's results file holds
+	 * exactly its solutions, each invalid board's results file briefly
+	 * reports its problem, and the summary has a row for every board.
+	 * 
+	 * @param outputDir directory given to -o in args
+	 * @param args      command line arguments, BATCH_FILENAME last
+	 * @return true if test passes, else false
+	 */
+	private boolean testCircuitTracerBatch(String outputDir, String... args) {
+		totalTests += 1;
+		Result result;
+		System.out.printf("Testing CircuitTracer({\"%s\"})\n", String.join("\" \"", args));
+		System.out.printf("Expecting a results file for every board and a summary in %s.\n", outputDir);
+		try {
+			PrintStream list = new PrintStream(new File(BATCH_FILENAME));
+			for (String fileName : VALID_FILENAMES) {
+				list.println(fileName);
+			}
+			for (String fileName : INVALID_FILENAMES) {
+				list.println(fileName);
+			}
+			list.close();
+			int boards = VALID_FILENAMES.length + INVALID_FILENAMES.length;
+			File outfile = new File(BATCH_FILENAME + ".out");
+			runCircuitTracer(outfile, args);
+			result = Result.ValidOutput;
+			Scanner scan = new Scanner(outfile);
+			String report = scan.hasNextLine() ? scan.nextLine() : "";
+			scan.close();
+			System.out.println(report);
+			if (!report.startsWith("Solved " + VALID_FILENAMES.length + " of " + boards + " boards")) {
+				System.out.println("Unexpected number of boards solved.");
+				result = Result.InvalidOutput;
+			}
+			for (int i = 0; i < VALID_FILENAMES.length; i++) {
+				File results = new File(outputDir, VALID_FILENAMES[i].replace(".dat", "") + ".out");
+				char[][][] solutions = VALID_SOLUTIONS[i];
+				int expectedRows = (solutions.length > 0 ? solutions[0].length : 0);
+				int expectedCols = (expectedRows > 0 ? solutions[0][0].length : 0);
+				try {
+					char[][][] outputSolutions = readOutFile(results, solutions.length, expectedRows, expectedCols);
+					for (int solution = 0; solution < solutions.length; solution++) {
+						if (!findSolution(solutions[solution], outputSolutions)) {
+							System.out.println(results + " is missing a solution.");
+							result = Result.InvalidOutput;
+						}
+					}
+				} catch (InvalidOutputException | FileNotFoundException e) {
+					System.out.println(results + " does NOT match expected content and format.");
+					result = Result.InvalidOutput;
+				}
+			}
+			for (String fileName : INVALID_FILENAMES) {
+				File results = new File(outputDir, fileName.replace(".dat", "") + ".out");
+				boolean includesExceptionName = false;
+				int lineCount = 0;
+				scan = new Scanner(results);
+				while (scan.hasNextLine()) {
+					includesExceptionName |= scan.nextLine().contains("Exception");
+					lineCount++;
+				}
+				scan.close();
+				if (!includesExceptionName || lineCount > 3) {
+					System.out.println(results + " does not briefly report the problem with " + fileName + ".");
+					result = Result.InvalidOutput;
+				}
+			}
+			int rows = 0;
+			scan = new Scanner(new File(outputDir, "summary.csv"));
+			while (scan.hasNextLine()) {
+				scan.nextLine();
+				rows++;
+			}
+			scan.close();
+			if (rows != boards + 1) {
+				System.out.println("Summary has " + rows + " lines instead of a header and " + boards + " rows.");
+				result = Result.InvalidOutput;
+			}
+			if (result == Result.ValidOutput) {
+				System.out.println("Results and summary match expected content and format.");
+			}
+		} catch (Exception e) {
+			result = Result.UnexpectedException;
+			e.printStackTrace(System.out);
+		}
+		return result == Result.ValidOutput;
+	}
+
+	/**
+	 * Confirm every pattern matches a whole line of what CircuitTracer prints
+	 * for the given arguments, and that no exception is reported.
+	 * 
+	 * @param patterns regular expressions, each of which must match a line
+	 * @param args     command line arguments, input file last
+	 * @return true if test passes, else false
+	 */
+	private boolean testCircuitTracerOutput(String[] patterns, String... args) {
+		totalTests += 1;
+		Result result;
+		System.out.printf("Testing CircuitTracer({\"%s\"})\n", String.join("\" \"", args));
+		try {
+			File outfile = new File(args[args.length - 1] + ".out");
+			runCircuitTracer(outfile, args);
+			ArrayList<String> lines = new ArrayList<String>();
+			Scanner scan = new Scanner(outfile);
+			System.out.println("***begin output***");
+			while (scan.hasNextLine()) {
+				String line = scan.nextLine();
+				System.out.println(line);
+				lines.add(line.trim());
+			}
+			System.out.println("***end output***");
+			scan.close();
+			result = Result.ValidOutput;
+			for (String pattern : patterns) {
+				if (!lines.stream().anyMatch(line -> line.matches(pattern))) {
+					System.out.println("Missing a line matching: " + pattern);
+					result = Result.InvalidOutput;
+				}
+			}
+			if (lines.stream().anyMatch(line -> line.contains("Exception"))) {
+				System.out.println("Unexpected exception in output.");
+				result = Result.InvalidOutput;
+			}
+		} catch (Exception e) {
+			result = Result.UnexpectedException;
+			e.printStackTrace(System.out);
+		}
+		return result == Result.ValidOutput;
+	}
+
+	/**
+	 * Run CircuitTracer with the given arguments, which must include -m
+	 * METRICS_FILENAME, and confirm the metrics file holds one line of JSON
+	 * matching the pattern.
+	 * 
+	 * @param pattern regular expression the JSON must match
+	 * @param args    command line arguments, input file last
+	 * @return true if test passes, else false
+	 */
+	private boolean testCircuitTracerMetricsFile(String pattern, String... args) {
+		totalTests += 1;
+		Result result;
+		System.out.printf("Testing CircuitTracer({\"%s\"})\n", String.join("\" \"", args));
+		System.out.printf("Expecting %s to hold the search metrics as JSON.\n", METRICS_FILENAME);
+		try {
+			File metrics = new File(METRICS_FILENAME);
+			metrics.delete();
+			runCircuitTracer(new File(args[args.length - 1] + ".out"), args);
+			Scanner scan = new Scanner(metrics);
+			String json = scan.hasNextLine() ? scan.nextLine() : "";
+			result = Result.ValidOutput;
+			if (scan.hasNextLine()) {
+				System.out.println("More than one line of JSON.");
+				result = Result.InvalidOutput;
+			}
+			scan.close();
+			System.out.println(json);
+			if (!json.matches(pattern)) {
+				System.out.println("JSON does not match: " + pattern);
+				result = Result.InvalidOutput;
+			}
+		} catch (FileNotFoundException e) {
+			result = Result.FileNotFound;
+			System.out.println(METRICS_FILENAME + " was not written.");
+		} catch (Exception e) {
+			result = Result.UnexpectedException;
+			e.printStackTrace(System.out);
+		}
+		return result == Result.ValidOutput;
+	}
+
+	/**
+	 * @param solutions every shortest path of a board
+	 * @return lines -n should print for the board
+	 */
+	private String[] countReport(char[][][] solutions) {
+		int length = 0;
+		if (solutions.length > 0) {
+			for (char[] row : solutions[0]) {
+				for (char value : row) {
+					if (value == 'T') {
+						length++;
+					}
+				}
+			}
+		}
+		return new String[] { "Shortest path length: " + length, "Number of shortest paths: " + solutions.length };
+	}
+
+	///////////////////////
+	// XXX NetRouter Tests
+	///////////////////////
+
+	/**
+	 * Route a board with NetRouter and confirm how many nets and trace cells
+	 * are routed and whether any net had to be ripped up, that every trace
+	 * joins its two pins through open cells no other trace or pin uses, and
+	 * that allowing more attempts never routes fewer nets.
+	 * 
+	 * @param fileName board file, multi-net or CircuitBoard
+	 * @param routed   number of nets that should be routed
+	 * @param length   total length of the routed traces
+	 * @param ripUp    true if routing every net needs a rip-up
+	 * @return true if test passes, else false
+	 */
+	private boolean testNetRouter(String fileName, int routed, int length, boolean ripUp) {
+		totalTests += 1;
+		Result result;
+		System.out.printf("Testing NetRouter on %s\n", fileName);
+		System.out.printf("Expecting %d nets routed on disjoint traces of total length %d%s.\n", routed, length,
+				ripUp ? " after a rip-up" : "");
+		try {
+			NetBoard board = NetBoard.read(fileName);
+			NetRouter router = new NetRouter(board, 20 * board.numNets());
+			System.out.print(router);
+			System.out.printf("%d of %d nets routed in %d attempts with %d rip-ups, total length %d\n",
+					router.routedCount(), board.numNets(), router.attempts(), router.ripUps(), router.totalLength());
+			result = Result.ValidOutput;
+			if (router.routedCount() != routed || router.totalLength() != length || (router.ripUps() > 0) != ripUp) {
+				result = Result.InvalidOutput;
+			}
+
+			// pins belong to their nets, every other cell to at most one trace
+			int cols = board.numCols();
+			boolean[] used = new boolean[board.cellCount()];
+			for (int net = 0; net < board.numNets(); net++) {
+				used[board.pin(net, 0)] = true;
+				used[board.pin(net, 1)] = true;
+			}
+			for (int net = 0; net < board.numNets(); net++) {
+				if (!router.isRouted(net)) {
+					continue;
+				}
+				int previous = board.pin(net, 0);
+				for (int cell : router.path(net)) {
+					if (board.isClosed(cell) || used[cell]
+							|| Math.abs(cell / cols - previous / cols) + Math.abs(cell % cols - previous % cols) != 1) {
+						System.out.printf("Trace of net %s is broken or overlaps at row %d, col %d.\n",
+								board.netName(net), cell / cols, cell % cols);
+						result = Result.InvalidOutput;
+					}
+					used[cell] = true;
+					previous = cell;
+				}
+				int last = board.pin(net, 1);
+				if (Math.abs(last / cols - previous / cols) + Math.abs(last % cols - previous % cols) != 1) {
+					System.out.printf("Trace of net %s does not reach its second pin.\n", board.netName(net));
+					result = Result.InvalidOutput;
+				}
+			}
+
+			// the same routing cut off after each attempt
+			int previousCount = 0;
+			for (int attempts = 1; attempts <= router.attempts(); attempts++) {
+				int count = new NetRouter(board, attempts).routedCount();
+				if (count < previousCount) {
+					System.out.printf("Routed nets dropped from %d to %d at attempt %d.\n", previousCount, count,
+							attempts);
+					result = Result.InvalidOutput;
+				}
+				previousCount = count;
+			}
+		} catch (Exception e) {
+			e.printStackTrace(System.out);
+			result = Result.UnexpectedException;
+		}
+		return result == Result.ValidOutput;
+	}
+
 	//////////////////////////////
 	// XXX CircuitTracer GUI Test
 	//////////////////////////////
@@ -996,6 +2022,105 @@ public class CircuitTracerTester {
 		return result == Result.ValidOutput;
 	}
 
+	///////////////////////////////
+	// XXX IncrementalTracer Tests
+	///////////////////////////////
+
+	/**
+	 * Apply batches of edits to an IncrementalTracer and confirm that after
+	 * each batch the board holds every edit and the resolved shortest path
+	 * length and count match a new ShortestPathDag of the edited board.
+	 * 
+	 * @param fileName input file
+	 * @param batches  edits applied together before each resolve
+	 * @return true if every resolve matches, else false
+	 */
+	private boolean testIncrementalTracer(String fileName, CellEdit[]... batches) {
+		totalTests += 1;
+		Result result;
+		System.out.printf("Testing IncrementalTracer on %s\n", fileName);
+		System.out.println("Expecting each resolve to match a new ShortestPathDag.");
+		try {
+			CircuitBoard expected = new CircuitBoard(fileName);
+			IncrementalTracer tracer = new IncrementalTracer(expected);
+			result = Result.ValidOutput;
+			for (CellEdit[] batch : batches) {
+				tracer.applyEdits(Arrays.asList(batch));
+				for (CellEdit edit : batch) {
+					expected.setOpen(edit.getRow(), edit.getCol(), edit.isOpen());
+				}
+				if (!matchesDag(tracer, expected, "after " + Arrays.toString(batch))) {
+					result = Result.InvalidOutput;
+				}
+			}
+		} catch (Exception e) {
+			e.printStackTrace(System.out);
+			result = Result.UnexpectedException;
+		}
+		return result == Result.ValidOutput;
+	}
+
+	/**
+	 * Apply a batch of edits that changes '1' or '2' and confirm it is
+	 * rejected with an OccupiedPositionException, that none of its edits
+	 * reach the board and that the tracer still matches the original board.
+	 * 
+	 * @param fileName input file
+	 * @param edits    batch with at least one edit on '1' or '2'
+	 * @return true if the batch is rejected and nothing changes, else false
+	 */
+	private boolean testIncrementalTracerInvalidEdit(String fileName, CellEdit... edits) {
+		totalTests += 1;
+		Result result;
+		System.out.printf("Testing IncrementalTracer on %s with %s\n", fileName, Arrays.toString(edits));
+		System.out.println("Expecting OccupiedPositionException and an unchanged board.");
+		try {
+			CircuitBoard original = new CircuitBoard(fileName);
+			IncrementalTracer tracer = new IncrementalTracer(original);
+			try {
+				tracer.applyEdits(Arrays.asList(edits));
+				System.out.println("Edits were accepted.");
+				result = Result.NoException;
+			} catch (OccupiedPositionException e) {
+				System.out.println(e.toString());
+				result = Result.ValidOutput;
+			}
+			if (result == Result.ValidOutput && !matchesDag(tracer, original, "after rejected edits")) {
+				result = Result.InvalidOutput;
+			}
+		} catch (Exception e) {
+			e.printStackTrace(System.out);
+			result = Result.UnexpectedException;
+		}
+		return result == Result.ValidOutput;
+	}
+
+	/**
+	 * Resolve the tracer and compare its board, shortest path length and
+	 * path count with the expected board and a new ShortestPathDag of it.
+	 * 
+	 * @param tracer   tracer with edits applied
+	 * @param expected board the tracer should now hold
+	 * @param when     description of the edits for the report
+	 * @return true if everything matches, else false
+	 */
+	private boolean matchesDag(IncrementalTracer tracer, CircuitBoard expected, String when) {
+		ShortestPathDag resolved = tracer.resolve();
+		ShortestPathDag fresh = new ShortestPathDag(expected);
+		CircuitBoard board = tracer.getBoard();
+		for (int row = 0; row < expected.numRows(); row++) {
+			for (int col = 0; col < expected.numCols(); col++) {
+				if (board.charAt(row, col) != expected.charAt(row, col)) {
+					System.out.printf("Board %s differs at row %d, col %d.\n", when, row, col);
+					return false;
+				}
+			}
+		}
+		System.out.printf("%s: length %d, paths %s; new ShortestPathDag: length %d, paths %s\n", when,
+				resolved.bestLength(), resolved.countPaths(), fresh.bestLength(), fresh.countPaths());
+		return resolved.bestLength() == fresh.bestLength() && resolved.countPaths().equals(fresh.countPaths());
+	}
+
 	//////////////////////////////////////////////////////////
 	// XXX Generate valid and invalid input files for testing
 	//////////////////////////////////////////////////////////
@@ -1029,6 +2154,7 @@ public class CircuitTracerTester {
 		makeFile(INVALID_10, INVALID_10_FILENAME, INVALID_10_ROWCOL);
 		makeFile(INVALID_11, INVALID_11_FILENAME, INVALID_11_ROWCOL);
 		makeFile(INVALID_12, INVALID_12_FILENAME, INVALID_12_ROWCOL);
+		makeFile(NETS_1, NETS_1_FILENAME);
 	}
 
 	/**
@@ -1292,6 +2418,34 @@ public class CircuitTracerTester {
 	private static final char[][] INVALID_12 = { // row/col double value
 			{ 'O', '1', 'O' }, { 'O', 'O', 'O' }, { 'O', '2', 'O' } };
 
+	///////////////////////////////////////
+	// XXX Multi-Net Input File Contents
+	///////////////////////////////////////
+
+	// valid4 converted to the dense format, routed as one net
+	private static final String VALID_4_DENSE_FILENAME = "valid4.dense";
+
+	// net 1's shortest trace takes the only row net 2 can use, so net 1
+	// must be ripped up and rerouted around the bottom
+	private static final String NETS_1_FILENAME = "nets1.dat";
+	private static final char[][] NETS_1 = { { '2', 'O', 'O', 'O', 'O', 'O', '2' },
+			{ 'X', '1', 'X', 'X', 'X', '1', 'X' }, { 'X', 'O', 'X', 'X', 'X', 'O', 'X' },
+			{ 'X', 'O', 'O', 'O', 'O', 'O', 'X' } };
+
+	//////////////////////////////////////////////////
+	// XXX Input Files for Tests Run on Every Board
+	//////////////////////////////////////////////////
+
+	private static final String[] VALID_FILENAMES = { VALID_1_FILENAME, VALID_2_FILENAME, VALID_3_FILENAME,
+			VALID_4_FILENAME, VALID_5_FILENAME, VALID_6_FILENAME, VALID_7_FILENAME, VALID_8_FILENAME, VALID_9_FILENAME,
+			VALID_10_FILENAME };
+	private static final char[][][][] VALID_SOLUTIONS = { VALID_1_SOLUTIONS, VALID_2_SOLUTIONS, VALID_3_SOLUTIONS,
+			VALID_4_SOLUTIONS, VALID_5_SOLUTIONS, VALID_6_SOLUTIONS, VALID_7_SOLUTIONS, VALID_8_SOLUTIONS,
+			VALID_9_SOLUTIONS, VALID_10_SOLUTIONS };
+	private static final String[] INVALID_FILENAMES = { INVALID_1_FILENAME, INVALID_2_FILENAME, INVALID_3_FILENAME,
+			INVALID_4_FILENAME, INVALID_5_FILENAME, INVALID_6_FILENAME, INVALID_7_FILENAME, INVALID_8_FILENAME,
+			INVALID_9_FILENAME, INVALID_10_FILENAME, INVALID_11_FILENAME, INVALID_12_FILENAME, NO_SUCH };
+
 	/** Indicates invalid output format from CircuitTracer */
 	private class InvalidOutputException extends IOException {
 		private static final long serialVersionUID = 1L;
@@ -0,0 +1,116 @@
+import java.util.NoSuchElementException;
+
+/**
+ * Unsynchronized FIFO queue stored in a circular array, used by Storage in
+ * place of LinkedList so that storing an element does not allocate a node.
+ * The array doubles when full, unwrapping the elements to the front of the
+ * new array, and keeps track of how large the queue got and how often it grew.
+ * 
+ * @author Kyle Truschel
+ */
+public class CircularArrayQueue<T> {
+	public static final int DEFAULT_CAPACITY = 16;
+	private T[] array;
+	/** index of the front element */
+	private int front;
+	/** number of elements */
+	private int count;
+	/** largest number of elements held at once */
+	private int peakSize;
+	/** number of times the array was grown */
+	private int resizeCount;
+
+	/** Create an empty queue with the default capacity */
+	public CircularArrayQueue() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create an empty queue with room for the given number of elements
+	 * before it has to grow.
+	 * 
+	 * @param initialCapacity starting array size
+	 */
+	@SuppressWarnings("unchecked")
+	public CircularArrayQueue(int initialCapacity) {
+		array = (T[]) (new Object[Math.max(1, initialCapacity)]);
+		front = 0;
+		count = 0;
+	}
+
+	/**
+	 * Double the array, copying the elements in queue order to the front.
+	 */
+	@SuppressWarnings("unchecked")
+	private void expandCapacity() {
+		T[] larger = (T[]) (new Object[array.length * 2]);
+		// the part from front to the end of the array, then the wrapped part
+		int firstPart = Math.min(count, array.length - front);
+		System.arraycopy(array, front, larger, 0, firstPart);
+		System.arraycopy(array, 0, larger, firstPart, count - firstPart);
+		array = larger;
+		front = 0;
+		resizeCount++;
+	}
+
+	/**
+	 * Add an element to the rear of the queue.
+	 * 
+	 * @param element element to add
+	 */
+	public void enqueue(T element) {
+		if (count == array.length) {
+			expandCapacity();
+		}
+		int rear = front + count;
+		if (rear >= array.length) {
+			rear -= array.length;
+		}
+		array[rear] = element;
+		count++;
+		if (count > peakSize) {
+			peakSize = count;
+		}
+	}
+
+	/**
+	 * Remove and return the front element.
+	 * 
+	 * @return least recently added element
+	 * @throws NoSuchElementException if the queue is empty
+	 */
+	public T dequeue() {
+		if (count == 0) {
+			throw new NoSuchElementException();
+		}
+		T element = array[front];
+		// let the removed element be garbage collected
+		array[front] = null;
+		front++;
+		if (front == array.length) {
+			front = 0;
+		}
+		count--;
+		return element;
+	}
+
+	/** @return true if the queue has no elements */
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/** @return number of elements in the queue */
+	public int size() {
+		return count;
+	}
+
+	/** @return largest number of elements held at once */
+	public int peakSize() {
+		return peakSize;
+	}
+
+	/** @return number of times the array was grown */
+	public int resizeCount() {
+		return resizeCount;
+	}
+} // class CircularArrayQueue
@@ -0,0 +1,239 @@
+import java.awt.Point;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes CircuitBoards in the dense text format: the .dat format
+ * without the separators. The first line is the word "dense" followed by the
+ * number of rows and columns, and each following line is one row of exactly
+ * that many characters from "OXT12", with no spaces between them:
+ * 
+ * dense 3 4
+ * 1OOX
+ * XOXO
+ * OOO2
+ * 
+ * A board takes about half the bytes of its .dat file, and rows are read
+ * straight into the cell array a buffer at a time instead of a token at a
+ * time. The leading word tells the format apart from .dat files, whose
+ * first line starts with a number. Lines may end in "\n" or "\r\n".
+ * 
+ * @author Kyle Truschel
+ */
+public class DenseBoardFormat {
+	/** first word of every dense file */
+	public static final String MAGIC = "dense";
+	/** characters allowed on the board, as in CircuitBoard */
+	private static final String ALLOWED_CHARS = "OXT12";
+	/** bytes read from the stream at a time */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final String name;
+	private final InputStream in;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	/** offset of the next unread byte in buffer */
+	private int pos;
+	/** number of valid bytes in buffer */
+	private int limit;
+
+	/**
+	 * @param name name of the source, for messages
+	 * @param in   stream positioned at the start of the board
+	 */
+	private DenseBoardFormat(String name, InputStream in) {
+		this.name = name;
+		this.in = in;
+	}
+
+	/**
+	 * Read a dense board file.
+	 * 
+	 * @param filename file in the dense format
+	 * @return the board read from the file
+	 * @throws FileNotFoundException      if the file cannot be opened or read
+	 * @throws InvalidFileFormatException for any file formatting or content issue
+	 */
+	public static CircuitBoard read(String filename) throws FileNotFoundException {
+		try (InputStream in = new FileInputStream(filename)) {
+			return read(in, filename);
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new FileNotFoundException(filename + " (" + e.getClass().getSimpleName() + ")");
+		}
+	}
+
+	/**
+	 * Read a dense board from a stream, which is left open. The stream is
+	 * read in large blocks, so it need not be buffered.
+	 * 
+	 * @param in   stream positioned at the start of the board
+	 * @param name name of the source, for messages
+	 * @return the board read from the stream
+	 * @throws IOException                if the stream cannot be read
+	 * @throws InvalidFileFormatException for any formatting or content issue
+	 */
+	public static CircuitBoard read(InputStream in, String name) throws IOException {
+		return new DenseBoardFormat(name, in).parse();
+	}
+
+	/**
+	 * Write a board in the dense format, one row at a time. The stream is
+	 * not closed.
+	 * 
+	 * @param board board to write
+	 * @param out   stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public static void write(CircuitBoard board, OutputStream out) throws IOException {
+		int rows = board.numRows();
+		int cols = board.numCols();
+		out.write((MAGIC + " " + rows + " " + cols + "\n").getBytes(StandardCharsets.US_ASCII));
+		byte[] line = new byte[cols + 1];
+		line[cols] = '\n';
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				line[col] = (byte) board.charAt(row, col);
+			}
+			out.write(line);
+		}
+	}
+
+	/**
+	 * @return the board described by the stream
+	 * @throws IOException if the stream cannot be read
+	 */
+	private CircuitBoard parse() throws IOException {
+		String[] header = readLine().trim().split("\\s+");
+		if (header.length < 3 || !header[0].equals(MAGIC)) {
+			throw new InvalidFileFormatException(name + " does not start with \"" + MAGIC + " rows cols\".");
+		}
+		long rows = parseSize(header[1]);
+		long cols = parseSize(header[2]);
+		if (rows < 0 || cols < 0) {
+			throw new InvalidFileFormatException(name + " rows and columns are not integers.");
+		}
+		if (rows * cols > Integer.MAX_VALUE) {
+			throw new InvalidFileFormatException(name + " has too many positions.");
+		}
+
+		int numRows = (int) rows;
+		int numCols = (int) cols;
+		byte[] cells = new byte[numRows * numCols];
+		Point start = null;
+		Point end = null;
+		for (int i = 0; i < numRows; i++) {
+			int offset = i * numCols;
+			int filled = 0;
+			// copy the row out of the buffer in as few pieces as it spans
+			while (filled < numCols) {
+				if (pos == limit && !fill()) {
+					throw new InvalidFileFormatException(
+							String.format("%s: row %d does not contain %d rows.", name, i, numRows));
+				}
+				int count = Math.min(numCols - filled, limit - pos);
+				System.arraycopy(buffer, pos, cells, offset + filled, count);
+				pos += count;
+				filled += count;
+			}
+			for (int k = 0; k < numCols; k++) {
+				byte value = cells[offset + k];
+				if (value == 'O' || value == 'X') {
+					continue;
+				}
+				if (value == '1') {
+					if (start != null) {
+						throw new InvalidFileFormatException(name + " contains more than one start point.");
+					}
+					start = new Point(i, k);
+				} else if (value == '2') {
+					if (end != null) {
+						throw new InvalidFileFormatException(name + " contains more than one end point.");
+					}
+					end = new Point(i, k);
+				} else if (value == '\n' || value == '\r') {
+					throw new InvalidFileFormatException(
+							String.format("%s: row %d does not contain %d columns.", name, i, numCols));
+				}
+				if (value < 0 || ALLOWED_CHARS.indexOf(value) == -1) {
+					throw new InvalidFileFormatException(name + " contains invalid characters.");
+				}
+			}
+			int next = read();
+			if (next == '\r') {
+				next = read();
+			}
+			if (next != '\n' && next != -1) {
+				throw new InvalidFileFormatException(name + " contains more than " + numCols + " columns.");
+			}
+		}
+		if (start == null || end == null) {
+			throw new InvalidFileFormatException(name + " does not contain a start or end point.");
+		}
+		for (int next = read(); next != -1; next = read()) {
+			if (!Character.isWhitespace(next)) {
+				throw new InvalidFileFormatException(name + " contains more than " + numRows + " rows.");
+			}
+		}
+		return new CircuitBoard(numRows, numCols, cells, start, end);
+	}
+
+	/**
+	 * @param token text of a size
+	 * @return the size, or -1 if it is not a non-negative int
+	 */
+	private static long parseSize(String token) {
+		try {
+			int value = Integer.parseInt(token);
+			return value >= 0 ? value : -1;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return the header line without its line break
+	 * @throws IOException if the stream cannot be read
+	 */
+	private String readLine() throws IOException {
+		StringBuilder line = new StringBuilder();
+		for (int next = read(); next != -1 && next != '\n'; next = read()) {
+			line.append((char) next);
+			if (line.length() > 64) {
+				throw new InvalidFileFormatException(name + " does not start with \"" + MAGIC + " rows cols\".");
+			}
+		}
+		return line.toString();
+	}
+
+	/**
+	 * @return the next byte of the stream, or -1 at its end
+	 * @throws IOException if the stream cannot be read
+	 */
+	private int read() throws IOException {
+		if (pos == limit && !fill()) {
+			return -1;
+		}
+		return buffer[pos++] & 0xFF;
+	}
+
+	/**
+	 * Refill the empty buffer from the stream.
+	 * 
+	 * @return false if the stream has ended
+	 * @throws IOException if the stream cannot be read
+	 */
+	private boolean fill() throws IOException {
+		int count = in.read(buffer);
+		while (count == 0) {
+			count = in.read(buffer);
+		}
+		pos = 0;
+		limit = Math.max(count, 0);
+		return count > 0;
+	}
+} // class DenseBoardFormat
@@ -0,0 +1,259 @@
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Shortest traces of a board that is edited a few positions at a time.
+ * The BFS distances from '1' and from '2' that ShortestPathDag is built on
+ * are kept between calls. After applyEdits, resolve repairs only the
+ * distances the edits can change instead of running both BFSes again, in
+ * the manner of LPA* on a grid where every step costs 1:
+ * 
+ * 1. Cells whose shortest route ran through a closed position lose their
+ * distance, found level by level from the closed positions outward. A cell
+ * keeps its distance as long as one neighbor is still one step closer.
+ * 2. Those cells and the newly opened positions take the best distance
+ * offered by their neighbors, and any improvement spreads outward with
+ * Dijkstra's algorithm until no distance changes.
+ * 
+ * The work is proportional to the number of cells whose distance changes,
+ * so a small edit far from the shortest traces costs little. Building the
+ * returned DAG still takes one pass over the board.
+ * 
+ * @author Kyle Truschel
+ */
+public class IncrementalTracer {
+	private final CircuitBoard board;
+	private final int rows;
+	private final int cols;
+	private final int startCell;
+	private final int endCell;
+	/** open cells as of the last resolve, which the distances describe */
+	private final BitSet open;
+	/** positions edited since the last resolve */
+	private final BitSet edited;
+	/** BFS distance from the cells next to '1', -1 if unreachable */
+	private final int[] fromStart;
+	/** BFS distance from the cells next to '2', -1 if unreachable */
+	private final int[] fromEnd;
+	/** cells whose distance was dropped by the current repair */
+	private final int[] invalidated;
+	/** number of distances changed by the last resolve */
+	private int repaired;
+
+	/**
+	 * Run the first full BFSes for the given board.
+	 * 
+	 * @param board board to trace, copied so later edits do not touch it
+	 */
+	public IncrementalTracer(CircuitBoard board) {
+		this.board = new CircuitBoard(board);
+		BoardGrid grid = new BoardGrid(board);
+		rows = grid.numRows();
+		cols = grid.numCols();
+		startCell = grid.startCell();
+		endCell = grid.endCell();
+		open = new BitSet(grid.cellCount());
+		for (int cell = 0; cell < grid.cellCount(); cell++) {
+			if (grid.isOpen(cell)) {
+				open.set(cell);
+			}
+		}
+		edited = new BitSet(grid.cellCount());
+		fromStart = grid.distancesFrom(grid.openNeighbors(startCell));
+		fromEnd = grid.distancesFrom(grid.openNeighbors(endCell));
+		invalidated = new int[grid.cellCount()];
+	}
+
+	/**
+	 * Set positions of the board to 'O' or 'X'. Nothing is searched until
+	 * resolve is called. Either every edit is applied or, if one is invalid,
+	 * none is.
+	 * 
+	 * @param edits positions to change, applied in order
+	 * @throws ArrayIndexOutOfBoundsException if an edit is outside the board
+	 * @throws OccupiedPositionException      if an edit would change '1' or '2'
+	 */
+	public void applyEdits(List<CellEdit> edits) {
+		for (CellEdit edit : edits) {
+			char value = board.charAt(edit.getRow(), edit.getCol());
+			if (value != 'O' && value != 'X') {
+				throw new OccupiedPositionException(
+						"row " + edit.getRow() + ", col " + edit.getCol() + " contains '" + value + "'");
+			}
+		}
+		for (CellEdit edit : edits) {
+			board.setOpen(edit.getRow(), edit.getCol(), edit.isOpen());
+			edited.set(edit.getRow() * cols + edit.getCol());
+		}
+	}
+
+	/**
+	 * Repair the distances for the edits applied since the last call and
+	 * build the shortest path DAG of the edited board.
+	 * 
+	 * @return shortest traces of the board as it is now; later edits do not
+	 *         change it
+	 */
+	public ShortestPathDag resolve() {
+		// an edit undone by a later one leaves nothing to repair
+		int changedCount = 0;
+		int[] changed = new int[edited.cardinality()];
+		for (int cell = edited.nextSetBit(0); cell >= 0; cell = edited.nextSetBit(cell + 1)) {
+			if (board.isOpen(cell / cols, cell % cols) != open.get(cell)) {
+				open.flip(cell);
+				changed[changedCount++] = cell;
+			}
+		}
+		edited.clear();
+
+		repaired = repair(fromStart, startCell, changed, changedCount)
+				+ repair(fromEnd, endCell, changed, changedCount);
+		BoardGrid grid = new BoardGrid(rows, cols, (BitSet) open.clone(), startCell, endCell);
+		return new ShortestPathDag(new CircuitBoard(board), grid, fromStart.clone(), fromEnd.clone());
+	}
+
+	/**
+	 * Bring one distance field up to date with the open cells.
+	 * 
+	 * @param dist         distances from the cells next to anchor, updated in place
+	 * @param anchor       '1' or '2', whose open neighbors are at distance 1
+	 * @param changed      cells opened or closed since dist was last correct
+	 * @param changedCount number of cells in changed
+	 * @return number of cells whose distance was set
+	 */
+	private int repair(int[] dist, int anchor, int[] changed, int changedCount) {
+		// heap entries are distance << 32 | cell
+		PriorityQueue<Long> heap = new PriorityQueue<Long>();
+
+		// 1. drop every distance that depended on a closed cell, nearest first
+		int dropped = 0;
+		for (int i = 0; i < changedCount; i++) {
+			int cell = changed[i];
+			if (!open.get(cell) && dist[cell] != -1) {
+				heap.add((long) dist[cell] << 32 | cell);
+			}
+		}
+		while (!heap.isEmpty()) {
+			long entry = heap.poll();
+			int cell = (int) entry;
+			int d = (int) (entry >>> 32);
+			if (dist[cell] != d || (open.get(cell) && supported(dist, anchor, cell, d))) {
+				continue;
+			}
+			dist[cell] = -1;
+			if (open.get(cell)) {
+				invalidated[dropped++] = cell;
+			}
+			for (int direction = 0; direction < BoardGrid.DIRECTIONS; direction++) {
+				int next = openNeighbor(cell, direction);
+				if (next != -1 && dist[next] == d + 1) {
+					heap.add((long) (d + 1) << 32 | next);
+				}
+			}
+		}
+
+		// 2. offer the dropped and opened cells the distance of their best neighbor
+		for (int i = 0; i < dropped; i++) {
+			offer(heap, dist, anchor, invalidated[i]);
+		}
+		for (int i = 0; i < changedCount; i++) {
+			if (open.get(changed[i])) {
+				offer(heap, dist, anchor, changed[i]);
+			}
+		}
+		int set = 0;
+		while (!heap.isEmpty()) {
+			long entry = heap.poll();
+			int cell = (int) entry;
+			int d = (int) (entry >>> 32);
+			if (dist[cell] != -1 && dist[cell] <= d) {
+				continue;
+			}
+			dist[cell] = d;
+			set++;
+			for (int direction = 0; direction < BoardGrid.DIRECTIONS; direction++) {
+				int next = openNeighbor(cell, direction);
+				if (next != -1 && (dist[next] == -1 || dist[next] > d + 1)) {
+					heap.add((long) (d + 1) << 32 | next);
+				}
+			}
+		}
+		return set;
+	}
+
+	/**
+	 * @param dist   distance field being repaired
+	 * @param anchor '1' or '2'
+	 * @param cell   open cell at distance d
+	 * @param d      distance of the cell
+	 * @return true if the cell still has a route of length d to anchor
+	 */
+	private boolean supported(int[] dist, int anchor, int cell, int d) {
+		if (d == 1) {
+			return adjacent(cell, anchor);
+		}
+		for (int direction = 0; direction < BoardGrid.DIRECTIONS; direction++) {
+			int next = openNeighbor(cell, direction);
+			if (next != -1 && dist[next] == d - 1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Queue an open cell at the best distance its neighbors give it.
+	 * 
+	 * @param heap   Dijkstra queue of distance << 32 | cell
+	 * @param dist   distance field being repaired
+	 * @param anchor '1' or '2'
+	 * @param cell   open cell to queue
+	 */
+	private void offer(PriorityQueue<Long> heap, int[] dist, int anchor, int cell) {
+		int best = adjacent(cell, anchor) ? 1 : -1;
+		for (int direction = 0; direction < BoardGrid.DIRECTIONS; direction++) {
+			int next = openNeighbor(cell, direction);
+			if (next != -1 && dist[next] != -1 && (best == -1 || dist[next] + 1 < best)) {
+				best = dist[next] + 1;
+			}
+		}
+		if (best != -1) {
+			heap.add((long) best << 32 | cell);
+		}
+	}
+
+	/**
+	 * @param cell      cell index
+	 * @param direction index into BoardGrid.ROW_STEPS and COL_STEPS
+	 * @return index of the neighboring cell if it is open, else -1
+	 */
+	private int openNeighbor(int cell, int direction) {
+		int row = cell / cols + BoardGrid.ROW_STEPS[direction];
+		int col = cell % cols + BoardGrid.COL_STEPS[direction];
+		if (row < 0 || row >= rows || col < 0 || col >= cols || !open.get(row * cols + col)) {
+			return -1;
+		}
+		return row * cols + col;
+	}
+
+	/**
+	 * @param a cell index
+	 * @param b cell index
+	 * @return true if the cells share a side
+	 */
+	private boolean adjacent(int a, int b) {
+		return Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols) == 1;
+	}
+
+	/** @return number of distances set by the last resolve, 0 before the first */
+	public int lastRepairSize() {
+		return repaired;
+	}
+
+	/** @return copy of the board with every edit applied */
+	public CircuitBoard getBoard() {
+		return new CircuitBoard(board);
+	}
+
+} // class IncrementalTracer
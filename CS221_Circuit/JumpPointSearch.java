@@ -0,0 +1,227 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.PriorityQueue;
+
+/**
+ * Jump point search for one shortest trace on a CircuitBoard. It runs like
+ * the A* search, ordered by steps taken plus the Manhattan distance left to
+ * '2', but instead of storing every open neighbor it runs straight across
+ * open cells and only stores the cells where a shortest trace might have
+ * to turn. On a board of wide open regions most cells are skipped over
+ * without ever being stored.
+ * 
+ * On a 4-connected grid a run along a row stops at a cell with a forced
+ * neighbor: an open cell above or below it whose counterpart one step back
+ * is blocked, so no equally short trace could have turned there earlier.
+ * A run along a column stops at such cells too, and also at any cell where
+ * a run along its row would stop, so turns off a column are never missed.
+ * The trace is rebuilt by filling in the straight runs between the stored
+ * cells.
+ * 
+ * Unlike the other strategies this finds a single shortest trace, not all
+ * of them.
+ * 
+ * @author Kyle Truschel
+ */
+public class JumpPointSearch {
+	private final CircuitBoard board;
+	private final BoardGrid grid;
+	/** steps from '1' of each stored cell, -1 if not reached */
+	private final int[] steps;
+	/** previous stored cell on the best known trace, -1 for cells next to '1' */
+	private final int[] parent;
+	/** stored cells already expanded */
+	private final BitSet closed;
+	/** number of cells stored */
+	private int statesCreated;
+	/** number of cells taken from the open list */
+	private int statesRetrieved;
+	/** most cells the open list held at once */
+	private int peakOpen;
+	/** the shortest trace found, if any */
+	private final ArrayList<TraceState> bestPaths = new ArrayList<TraceState>();
+
+	/**
+	 * Run the search on the given board.
+	 * 
+	 * @param board board to search, not modified
+	 */
+	public JumpPointSearch(CircuitBoard board) {
+		this.board = board;
+		grid = new BoardGrid(board);
+		steps = new int[grid.cellCount()];
+		parent = new int[grid.cellCount()];
+		closed = new BitSet(grid.cellCount());
+		Arrays.fill(steps, -1);
+		search();
+	}
+
+	/** Expand the most promising stored cell until '2' is reached. */
+	private void search() {
+		// queue entries are { steps + distance left, steps, cell }; ties go to
+		// the most steps taken, so open regions are crossed by diving toward
+		// '2' instead of widening a front of equally good cells
+		PriorityQueue<long[]> open = new PriorityQueue<long[]>(
+				(a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]));
+		for (int cell : grid.openNeighbors(grid.startCell())) {
+			steps[cell] = 1;
+			parent[cell] = -1;
+			open.add(new long[] {1 + remaining(cell), 1, cell});
+			statesCreated++;
+		}
+		while (!open.isEmpty()) {
+			peakOpen = Math.max(peakOpen, open.size());
+			int cell = (int) open.poll()[2];
+			statesRetrieved++;
+			if (closed.get(cell)) {
+				continue;
+			}
+			if (cell == grid.endCell()) {
+				bestPaths.add(trace());
+				return;
+			}
+			closed.set(cell);
+			int row = grid.row(cell);
+			int col = grid.col(cell);
+			for (int direction = 0; direction < BoardGrid.DIRECTIONS; direction++) {
+				int rowStep = BoardGrid.ROW_STEPS[direction];
+				int colStep = BoardGrid.COL_STEPS[direction];
+				// never run straight back toward the cell this one was reached from
+				if (parent[cell] != -1 && runsBack(cell, rowStep, colStep)) {
+					continue;
+				}
+				int next = jump(row, col, rowStep, colStep);
+				if (next == -1 || closed.get(next)) {
+					continue;
+				}
+				int nextSteps = steps[cell] + Math.abs(grid.row(next) - row) + Math.abs(grid.col(next) - col);
+				if (steps[next] == -1 || nextSteps < steps[next]) {
+					steps[next] = nextSteps;
+					parent[next] = cell;
+					open.add(new long[] {nextSteps + remaining(next), nextSteps, next});
+					statesCreated++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param cell     stored cell with a parent
+	 * @param rowStep  row offset of a direction
+	 * @param colStep  col offset of a direction
+	 * @return true if the direction points back at the parent of the cell
+	 */
+	private boolean runsBack(int cell, int rowStep, int colStep) {
+		int rowDiff = grid.row(parent[cell]) - grid.row(cell);
+		int colDiff = grid.col(parent[cell]) - grid.col(cell);
+		return Integer.signum(rowDiff) == rowStep && Integer.signum(colDiff) == colStep;
+	}
+
+	/**
+	 * Run straight from a cell until reaching a cell worth storing.
+	 * 
+	 * @param row     row to run from
+	 * @param col     col to run from
+	 * @param rowStep row offset of the direction, 0 when running along a row
+	 * @param colStep col offset of the direction, 0 when running along a column
+	 * @return cell index of '2' or of the first cell where a trace may turn,
+	 *         or -1 if the run ends at a blocked cell
+	 */
+	private int jump(int row, int col, int rowStep, int colStep) {
+		while (true) {
+			row += rowStep;
+			col += colStep;
+			if (!passable(row, col)) {
+				return -1;
+			}
+			int cell = row * grid.numCols() + col;
+			if (cell == grid.endCell()) {
+				return cell;
+			}
+			if (colStep != 0) {
+				if ((passable(row - 1, col) && !passable(row - 1, col - colStep))
+						|| (passable(row + 1, col) && !passable(row + 1, col - colStep))) {
+					return cell;
+				}
+			} else {
+				if ((passable(row, col - 1) && !passable(row - rowStep, col - 1))
+						|| (passable(row, col + 1) && !passable(row - rowStep, col + 1))) {
+					return cell;
+				}
+				if (jump(row, col, 0, 1) != -1 || jump(row, col, 0, -1) != -1) {
+					return cell;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param row row coordinate
+	 * @param col col coordinate
+	 * @return true if a trace can be laid at row, col or it holds '2'
+	 */
+	private boolean passable(int row, int col) {
+		return grid.isOpen(row, col) || (row >= 0 && row < grid.numRows() && col >= 0 && col < grid.numCols()
+				&& row * grid.numCols() + col == grid.endCell());
+	}
+
+	/**
+	 * @param cell cell index
+	 * @return Manhattan distance from the cell to '2'
+	 */
+	private int remaining(int cell) {
+		int end = grid.endCell();
+		return Math.abs(grid.row(cell) - grid.row(end)) + Math.abs(grid.col(cell) - grid.col(end));
+	}
+
+	/**
+	 * Fill in the straight runs between the stored cells that led to '2'.
+	 * 
+	 * @return the trace from the cell next to '1' to the cell next to '2'
+	 */
+	private TraceState trace() {
+		ArrayList<Point> points = new ArrayList<Point>(steps[grid.endCell()] - 1);
+		int cell = grid.endCell();
+		while (parent[cell] != -1) {
+			int from = parent[cell];
+			int rowStep = Integer.signum(grid.row(cell) - grid.row(from));
+			int colStep = Integer.signum(grid.col(cell) - grid.col(from));
+			// walk back from cell to just past from
+			for (int row = grid.row(cell), col = grid.col(cell); row != grid.row(from)
+					|| col != grid.col(from); row -= rowStep, col -= colStep) {
+				points.add(new Point(row, col));
+			}
+			cell = from;
+		}
+		points.add(grid.toPoint(cell));
+		// the runs were walked from '2' back to '1', and '2' is not a trace
+		points.remove(0);
+		ArrayList<Point> forward = new ArrayList<Point>(points.size());
+		for (int i = points.size() - 1; i >= 0; i--) {
+			forward.add(points.get(i));
+		}
+		return new TraceState(board, forward);
+	}
+
+	/** @return number of cells stored, counted as TraceStates created */
+	public int statesCreated() {
+		return statesCreated;
+	}
+
+	/** @return number of cells taken from the open list */
+	public int statesRetrieved() {
+		return statesRetrieved;
+	}
+
+	/** @return most cells the open list held at once */
+	public int peakOpen() {
+		return peakOpen;
+	}
+
+	/** @return the shortest trace found, or an empty list if there is none */
+	public ArrayList<TraceState> getBestPaths() {
+		return bestPaths;
+	}
+} // class JumpPointSearch
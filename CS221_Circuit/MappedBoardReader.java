@@ -0,0 +1,223 @@
+import java.awt.Point;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a CircuitBoard file by memory-mapping it and parsing the bytes in
+ * place, instead of running a Scanner over every line and a String over
+ * every cell as CircuitBoard(String) does. Positions go straight into a
+ * row-major byte[] grid. Every check and message of CircuitBoard(String) is
+ * kept, in the same order, so a file is rejected for the same reason by
+ * either reader.
+ *
+ * @author Kyle Truschel
+ */
+public class MappedBoardReader {
+	/** characters allowed on the board, as in CircuitBoard */
+	private static final String ALLOWED_CHARS = "OXT12";
+
+	private final String filename;
+	private final MappedByteBuffer buffer;
+	private final int limit;
+	/** offset of the next unread byte */
+	private int pos;
+
+	/**
+	 * @param filename file being read, for messages
+	 * @param buffer   mapped contents of the file
+	 */
+	private MappedBoardReader(String filename, MappedByteBuffer buffer) {
+		this.filename = filename;
+		this.buffer = buffer;
+		limit = buffer.limit();
+		pos = 0;
+	}
+
+	/**
+	 * Read a CircuitBoard from a file in the format described in
+	 * CircuitBoard(String).
+	 *
+	 * @param filename file containing a grid of characters
+	 * @return the board read from the file
+	 * @throws FileNotFoundException      if the file cannot be opened or read
+	 * @throws InvalidFileFormatException for any file formatting or content issue
+	 */
+	public static CircuitBoard read(String filename) throws FileNotFoundException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new InvalidFileFormatException(filename + " is too large to map.");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (NoSuchFileException e) {
+			// report like the Scanner-based constructor does
+			throw new FileNotFoundException(filename + " (No such file or directory)");
+		} catch (IOException e) {
+			throw new FileNotFoundException(filename + " (" + e.getClass().getSimpleName() + ")");
+		}
+		return new MappedBoardReader(filename, buffer).parse();
+	}
+
+	/**
+	 * @return the board described by the mapped bytes
+	 */
+	private CircuitBoard parse() {
+		// The first line holds the number of rows and columns
+		int lineEnd = lineEnd(pos);
+		long rows = nextInt(lineEnd);
+		if (rows < 0) {
+			throw new InvalidFileFormatException(filename + " first value is not an integer.");
+		}
+		long cols = nextInt(lineEnd);
+		if (cols < 0) {
+			throw new InvalidFileFormatException(filename + " second value is not an integer.");
+		}
+		if (rows * cols > Integer.MAX_VALUE) {
+			throw new InvalidFileFormatException(filename + " has too many positions.");
+		}
+		// anything else on the first line is ignored, as with the Scanner
+		pos = Math.min(lineEnd + 1, limit);
+
+		int numRows = (int) rows;
+		int numCols = (int) cols;
+		byte[] cells = new byte[numRows * numCols];
+		Point start = null;
+		Point end = null;
+
+		for (int i = 0; i < numRows; i++) {
+			if (!hasToken(pos, limit)) {
+				throw new InvalidFileFormatException(
+						String.format("%s: row %d does not contain %d rows.", filename, i, numRows));
+			}
+			lineEnd = lineEnd(pos);
+			for (int k = 0; k < numCols; k++) {
+				skipWhitespace(lineEnd);
+				if (pos == lineEnd) {
+					throw new InvalidFileFormatException(
+							String.format("%s: row %d does not contain %d columns.", filename, i, numCols));
+				}
+				int tokenStart = pos;
+				int length = 0;
+				while (pos < lineEnd && !isWhitespace(buffer.get(pos))) {
+					// count characters, not UTF-8 continuation bytes
+					if ((buffer.get(pos) & 0xC0) != 0x80) {
+						length++;
+					}
+					pos++;
+				}
+				if (length != 1) {
+					throw new InvalidFileFormatException(String
+							.format("%s: row %d column %d contains more than one character.", filename, i, k));
+				}
+				byte value = buffer.get(tokenStart);
+				if (value == '1') {
+					if (start != null) {
+						throw new InvalidFileFormatException(filename + " contains more than one start point.");
+					}
+					start = new Point(i, k);
+				} else if (value == '2') {
+					if (end != null) {
+						throw new InvalidFileFormatException(filename + " contains more than one end point.");
+					}
+					end = new Point(i, k);
+				}
+				if (value < 0 || ALLOWED_CHARS.indexOf(value) == -1) {
+					throw new InvalidFileFormatException(filename + " contains invalid characters.");
+				}
+				cells[i * numCols + k] = value;
+			}
+			if (hasToken(pos, lineEnd)) {
+				throw new InvalidFileFormatException(filename + " contains more than " + numCols + " columns.");
+			}
+			pos = Math.min(lineEnd + 1, limit);
+		}
+		if (start == null || end == null) {
+			throw new InvalidFileFormatException(filename + " does not contain a start or end point.");
+		}
+		if (hasToken(pos, limit)) {
+			throw new InvalidFileFormatException(filename + " contains more than " + numRows + " rows.");
+		}
+		return new CircuitBoard(numRows, numCols, cells, start, end);
+	}
+
+	/**
+	 * Parse the next whitespace-separated token before lineEnd as a
+	 * non-negative int, the way Scanner.nextInt() would accept it.
+	 *
+	 * @param lineEnd end of the current line
+	 * @return the value, or -1 if there is no token or it is not an int
+	 */
+	private long nextInt(int lineEnd) {
+		skipWhitespace(lineEnd);
+		if (pos == lineEnd) {
+			return -1;
+		}
+		boolean valid = true;
+		long value = 0;
+		int digits = 0;
+		if (buffer.get(pos) == '+') {
+			pos++;
+		}
+		while (pos < lineEnd && !isWhitespace(buffer.get(pos))) {
+			byte b = buffer.get(pos++);
+			if (b < '0' || b > '9' || value > Integer.MAX_VALUE) {
+				valid = false;
+			} else {
+				value = value * 10 + (b - '0');
+				digits++;
+			}
+		}
+		return (valid && digits > 0 && value <= Integer.MAX_VALUE) ? value : -1;
+	}
+
+	/**
+	 * Advance pos past spaces and tabs, but not past the end of the line.
+	 *
+	 * @param lineEnd end of the current line
+	 */
+	private void skipWhitespace(int lineEnd) {
+		while (pos < lineEnd && isWhitespace(buffer.get(pos))) {
+			pos++;
+		}
+	}
+
+	/**
+	 * @param from offset to search from
+	 * @return offset of the next newline, or the end of the file
+	 */
+	private int lineEnd(int from) {
+		int i = from;
+		while (i < limit && buffer.get(i) != '\n') {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * @param from first offset to check
+	 * @param to   offset to stop before
+	 * @return true if a non-whitespace byte is in [from, to)
+	 */
+	private boolean hasToken(int from, int to) {
+		for (int i = from; i < to; i++) {
+			byte b = buffer.get(i);
+			if (!isWhitespace(b) && b != '\n') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param b byte to check
+	 * @return true for whitespace other than a newline
+	 */
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+	}
+} // class MappedBoardReader
@@ -0,0 +1,277 @@
+import java.awt.Point;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Board with many nets to connect, as read from a multi-net board file.
+ * The format extends the CircuitBoard format: the first line holds the
+ * number of rows and columns, and each following line is one row of
+ * whitespace-separated positions. A position is 'O' for open, 'X' for
+ * closed, or the name of the net that has a pin there. A net name is a
+ * positive integer and every net has exactly two pins, for example
+ * 
+ * 3 4
+ * 1 O O 1
+ * X O X X
+ * 2 O O 2
+ * 
+ * A CircuitBoard file, with one '1' and one '2', is read as a single net
+ * whose first pin is the '1' and second pin the '2', so the router accepts
+ * the original boards as they are; read() also takes them in the dense and
+ * run-length formats of BoardConverter.
+ * 
+ * Nets are numbered in the order their first pin appears, reading row by
+ * row. Positions are cell indices row * numCols() + col, as in BoardGrid.
+ * 
+ * @author Kyle Truschel
+ */
+public class NetBoard {
+	private final int rows;
+	private final int cols;
+	/** positions marked 'X' */
+	private final BitSet closed;
+	/** cell of each pin, the two pins of net i at 2 * i and 2 * i + 1 */
+	private final int[] pins;
+	/** name of each net as written in the file */
+	private final String[] names;
+	/** true if the file was a CircuitBoard file, read as one net from '1' to '2' */
+	private final boolean singlePair;
+
+	/**
+	 * Read a board in any format: a dense or run-length CircuitBoard file as
+	 * one net from '1' to '2', anything else as a multi-net board file.
+	 * 
+	 * @param filename file containing the board
+	 * @return board read from the file
+	 * @throws FileNotFoundException      if the file cannot be opened or read
+	 * @throws InvalidFileFormatException for any file formatting or content issue
+	 */
+	public static NetBoard read(String filename) throws FileNotFoundException {
+		if (BoardConverter.detect(new File(filename)) != BoardConverter.Format.dat) {
+			return new NetBoard(CircuitTracer.loadBoard(filename));
+		}
+		return new NetBoard(filename);
+	}
+
+	/**
+	 * One net from the '1' to the '2' of a CircuitBoard. Positions holding
+	 * a trace are closed, like those marked 'X'.
+	 * 
+	 * @param board board to route, not kept
+	 */
+	public NetBoard(CircuitBoard board) {
+		rows = board.numRows();
+		cols = board.numCols();
+		closed = new BitSet(rows * cols);
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				char value = board.charAt(row, col);
+				if (value == 'X' || value == 'T') {
+					closed.set(row * cols + col);
+				}
+			}
+		}
+		Point start = board.getStartingPoint();
+		Point end = board.getEndingPoint();
+		names = new String[] { "1" };
+		pins = new int[] { start.x * cols + start.y, end.x * cols + end.y };
+		singlePair = true;
+	}
+
+	/**
+	 * Read a multi-net board from the given text file.
+	 * 
+	 * @param filename file containing the board
+	 * @throws FileNotFoundException      if the file cannot be opened or read
+	 * @throws InvalidFileFormatException for any file formatting or content issue
+	 */
+	public NetBoard(String filename) throws FileNotFoundException {
+		try (BufferedReader in = new BufferedReader(new FileReader(filename))) {
+			String[] header = tokens(in.readLine());
+			if (header.length < 1 || !isCount(header[0])) {
+				throw new InvalidFileFormatException(filename + " first value is not an integer.");
+			}
+			if (header.length < 2 || !isCount(header[1])) {
+				throw new InvalidFileFormatException(filename + " second value is not an integer.");
+			}
+			rows = Integer.parseInt(header[0]);
+			cols = Integer.parseInt(header[1]);
+			if ((long) rows * cols > Integer.MAX_VALUE) {
+				throw new InvalidFileFormatException(filename + " has too many positions.");
+			}
+			closed = new BitSet(rows * cols);
+
+			HashMap<String, Integer> netByName = new HashMap<String, Integer>();
+			ArrayList<String> nameList = new ArrayList<String>();
+			ArrayList<int[]> pinList = new ArrayList<int[]>();
+			for (int row = 0; row < rows; row++) {
+				String line = in.readLine();
+				while (line != null && line.trim().isEmpty()) {
+					line = in.readLine();
+				}
+				if (line == null) {
+					throw new InvalidFileFormatException(
+							String.format("%s: row %d does not contain %d rows.", filename, row, rows));
+				}
+				String[] values = tokens(line);
+				if (values.length < cols) {
+					throw new InvalidFileFormatException(
+							String.format("%s: row %d does not contain %d columns.", filename, row, cols));
+				}
+				if (values.length > cols) {
+					throw new InvalidFileFormatException(filename + " contains more than " + cols + " columns.");
+				}
+				for (int col = 0; col < cols; col++) {
+					int cell = row * cols + col;
+					String value = values[col];
+					if (value.equals("X")) {
+						closed.set(cell);
+					} else if (!value.equals("O")) {
+						if (!isCount(value) || Integer.parseInt(value) == 0) {
+							throw new InvalidFileFormatException(filename + " contains invalid characters.");
+						}
+						// numbers with leading zeros name the same net
+						String name = Integer.toString(Integer.parseInt(value));
+						Integer net = netByName.get(name);
+						if (net == null) {
+							netByName.put(name, nameList.size());
+							nameList.add(name);
+							pinList.add(new int[] { cell, -1 });
+						} else if (pinList.get(net)[1] == -1) {
+							pinList.get(net)[1] = cell;
+						} else {
+							throw new InvalidFileFormatException(
+									filename + " net " + name + " has more than two pins.");
+						}
+					}
+				}
+			}
+			String extra = in.readLine();
+			while (extra != null && extra.trim().isEmpty()) {
+				extra = in.readLine();
+			}
+			if (extra != null) {
+				throw new InvalidFileFormatException(filename + " contains more than " + rows + " rows.");
+			}
+
+			// a CircuitBoard file names two nets with one pin each, '1' and '2'
+			singlePair = nameList.size() == 2 && netByName.containsKey("1") && netByName.containsKey("2")
+					&& pinList.get(0)[1] == -1 && pinList.get(1)[1] == -1;
+			if (singlePair) {
+				int start = netByName.get("1");
+				names = new String[] { "1" };
+				pins = new int[] { pinList.get(start)[0], pinList.get(1 - start)[0] };
+				return;
+			}
+			names = nameList.toArray(new String[0]);
+			pins = new int[2 * names.length];
+			for (int net = 0; net < names.length; net++) {
+				if (pinList.get(net)[1] == -1) {
+					throw new InvalidFileFormatException(filename + " net " + names[net] + " has only one pin.");
+				}
+				pins[2 * net] = pinList.get(net)[0];
+				pins[2 * net + 1] = pinList.get(net)[1];
+			}
+			if (names.length == 0) {
+				throw new InvalidFileFormatException(filename + " does not contain any nets.");
+			}
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new FileNotFoundException(filename + " (" + e.getMessage() + ")");
+		}
+	}
+
+	/**
+	 * @param line line of the file, may be null
+	 * @return whitespace-separated tokens of the line
+	 */
+	private static String[] tokens(String line) {
+		if (line == null || line.trim().isEmpty()) {
+			return new String[0];
+		}
+		return line.trim().split("\\s+");
+	}
+
+	/**
+	 * @param token token to check
+	 * @return true if the token is a non-negative int
+	 */
+	private static boolean isCount(String token) {
+		if (token.isEmpty() || token.length() > 10) {
+			return false;
+		}
+		for (int i = 0; i < token.length(); i++) {
+			if (token.charAt(i) < '0' || token.charAt(i) > '9') {
+				return false;
+			}
+		}
+		return Long.parseLong(token) <= Integer.MAX_VALUE;
+	}
+
+	/** @return number of rows */
+	public int numRows() {
+		return rows;
+	}
+
+	/** @return number of columns */
+	public int numCols() {
+		return cols;
+	}
+
+	/** @return number of cells on the board */
+	public int cellCount() {
+		return rows * cols;
+	}
+
+	/** @return number of nets */
+	public int numNets() {
+		return names.length;
+	}
+
+	/**
+	 * @param net net number
+	 * @return name of the net in the file
+	 */
+	public String netName(int net) {
+		return names[net];
+	}
+
+	/**
+	 * @param net net number
+	 * @param pin 0 or 1
+	 * @return name the pin is written with, the net name or '1' and '2' for a
+	 *         CircuitBoard file
+	 */
+	public String pinName(int net, int pin) {
+		return singlePair ? Integer.toString(pin + 1) : names[net];
+	}
+
+	/** @return true if the file was a CircuitBoard file, read as one net from '1' to '2' */
+	public boolean isSinglePair() {
+		return singlePair;
+	}
+
+	/**
+	 * @param net net number
+	 * @param pin 0 or 1
+	 * @return cell index of the pin
+	 */
+	public int pin(int net, int pin) {
+		return pins[2 * net + pin];
+	}
+
+	/**
+	 * @param cell cell index
+	 * @return true if the position is marked 'X'
+	 */
+	public boolean isClosed(int cell) {
+		return closed.get(cell);
+	}
+} // class NetBoard
@@ -0,0 +1,429 @@
+import java.io.FileNotFoundException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Routes every net of a NetBoard on one shared grid. Each cell of the grid
+ * records which net owns it, so laying down, checking and ripping up traces
+ * never copies a board, which keeps hundreds of nets cheap.
+ * 
+ * Nets are routed one at a time, shortest pin distance first, with a BFS
+ * over the cells no net owns yet, so traces of earlier nets and pins of
+ * every other net are obstacles. A net that finds no free route is routed
+ * again with Dijkstra's algorithm allowed to cross other nets' traces at a
+ * cost. The nets it crosses are ripped up and rerouted around it; when one
+ * of them no longer fits, the reroute is undone and the crossed cells get
+ * more expensive, so the next try crosses somewhere else. Routing stops
+ * when every net is routed or the attempt limit is reached.
+ * 
+ * @author Kyle Truschel
+ */
+public class NetRouter {
+	/** owner of a cell no net uses */
+	private static final int FREE = -1;
+	/** owner of a closed cell */
+	private static final int CLOSED = -2;
+	/** extra cost of crossing another net's trace */
+	private static final int CROSSING_COST = 4;
+	/** retries of every failed net without any success before giving up */
+	private static final int STALE_ROUNDS = 5;
+
+	private final NetBoard board;
+	private final int rows;
+	private final int cols;
+	/** net owning each cell, FREE or CLOSED */
+	private final int[] owner;
+	/** true for the pin cells, which are never ripped up */
+	private final boolean[] pin;
+	/** number of times each cell was fought over */
+	private final int[] history;
+	/** trace cells of each routed net from its first pin to its second, null if unrouted */
+	private final int[][] paths;
+
+	// search scratch space, reused by every search
+	private final int[] parent;
+	private final int[] seen;
+	private final long[] cost;
+	private final int[] queue;
+	private int stamp;
+
+	private int attempts;
+	private int ripUps;
+
+	/**
+	 * Route the nets of the given board.
+	 * 
+	 * @param board       board to route, not modified
+	 * @param maxAttempts most routing attempts, counting reroutes, at least 1
+	 * @throws IllegalArgumentException if maxAttempts is less than 1
+	 */
+	public NetRouter(NetBoard board, int maxAttempts) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("maxAttempts must be at least 1");
+		}
+		this.board = board;
+		rows = board.numRows();
+		cols = board.numCols();
+		int cells = board.cellCount();
+		owner = new int[cells];
+		pin = new boolean[cells];
+		history = new int[cells];
+		paths = new int[board.numNets()][];
+		parent = new int[cells];
+		seen = new int[cells];
+		cost = new long[cells];
+		queue = new int[cells];
+
+		for (int cell = 0; cell < cells; cell++) {
+			owner[cell] = board.isClosed(cell) ? CLOSED : FREE;
+		}
+		for (int net = 0; net < board.numNets(); net++) {
+			for (int p = 0; p < 2; p++) {
+				owner[board.pin(net, p)] = net;
+				pin[board.pin(net, p)] = true;
+			}
+		}
+		route(maxAttempts);
+	}
+
+	/**
+	 * Route the nets given in a file and print the result.
+	 * 
+	 * @param args [-i attempts] filename
+	 */
+	public static void main(String[] args) {
+		int maxAttempts = -1;
+		if (args.length == 3 && args[0].equals("-i")) {
+			try {
+				maxAttempts = Integer.parseInt(args[1]);
+			} catch (NumberFormatException e) {
+				maxAttempts = 0;
+			}
+		}
+		if ((args.length != 1 && maxAttempts < 1) || args.length == 2 || args.length > 3) {
+			System.out.println("Usage: java NetRouter [-i attempts] filename");
+			return;
+		}
+		String filename = args[args.length - 1];
+		NetBoard board;
+		try {
+			board = NetBoard.read(filename);
+		} catch (FileNotFoundException e) {
+			System.out.println(e + " File was not found.");
+			return;
+		} catch (InvalidFileFormatException e) {
+			System.out.println(e + " File is not in the correct format.");
+			return;
+		}
+		NetRouter router = new NetRouter(board, maxAttempts > 0 ? maxAttempts : 20 * board.numNets());
+		System.out.println("Routed " + router.routedCount() + " of " + board.numNets() + " nets in "
+				+ router.attempts() + " attempts with " + router.ripUps() + " rip-ups, total trace length "
+				+ router.totalLength());
+		for (int net = 0; net < board.numNets(); net++) {
+			System.out.println("net " + board.netName(net) + ": "
+					+ (router.isRouted(net) ? "length " + router.path(net).length : "not routed"));
+		}
+		System.out.println();
+		System.out.print(router);
+	}
+
+	/**
+	 * Route every net once with a BFS, then retry the nets that failed until
+	 * all are routed or the attempts run out. A retry crosses other nets'
+	 * traces, rips those nets up and routes them again around the new trace.
+	 * If any of them cannot be routed again, the retry is undone and the
+	 * cells it crossed cost more for the next one, so the number of routed
+	 * nets never goes down.
+	 * 
+	 * @param maxAttempts most routing attempts
+	 */
+	private void route(int maxAttempts) {
+		Integer[] order = new Integer[board.numNets()];
+		for (int net = 0; net < order.length; net++) {
+			order[net] = net;
+		}
+		Arrays.sort(order, Comparator.comparingInt(this::pinDistance));
+		ArrayDeque<Integer> failed = new ArrayDeque<Integer>();
+		for (int net : order) {
+			if (attempts == maxAttempts) {
+				return;
+			}
+			attempts++;
+			int[] path = search(net, false);
+			if (path == null) {
+				failed.add(net);
+			} else {
+				lay(net, path);
+			}
+		}
+
+		// give up once every failed net has had STALE_ROUNDS retries in a row with no success
+		int retriesSinceSuccess = 0;
+		while (!failed.isEmpty() && attempts < maxAttempts && retriesSinceSuccess < STALE_ROUNDS * failed.size()) {
+			int net = failed.poll();
+			retriesSinceSuccess++;
+			attempts++;
+			int[] path = search(net, true);
+			if (path == null) {
+				continue; // walled in by pins or 'X's, no rip-up can help
+			}
+			ArrayList<Integer> victims = new ArrayList<Integer>();
+			ArrayList<int[]> oldPaths = new ArrayList<int[]>();
+			for (int cell : path) {
+				int other = owner[cell];
+				if (other != FREE && paths[other] != null) {
+					victims.add(other);
+					oldPaths.add(paths[other]);
+					unlay(other);
+				}
+			}
+			lay(net, path);
+			int rerouted = 0;
+			for (; rerouted < victims.size(); rerouted++) {
+				int[] detour = search(victims.get(rerouted), false);
+				if (detour == null) {
+					break;
+				}
+				lay(victims.get(rerouted), detour);
+			}
+			if (rerouted == victims.size()) {
+				ripUps += victims.size();
+				retriesSinceSuccess = 0;
+				continue;
+			}
+
+			// undo the retry and make its crossings dearer
+			for (int i = 0; i < rerouted; i++) {
+				unlay(victims.get(i));
+			}
+			unlay(net);
+			for (int i = 0; i < victims.size(); i++) {
+				lay(victims.get(i), oldPaths.get(i));
+			}
+			for (int cell : path) {
+				if (owner[cell] != FREE) {
+					history[cell]++;
+				}
+			}
+			failed.add(net);
+		}
+	}
+
+	/**
+	 * @param net net number
+	 * @return Manhattan distance between the pins of the net
+	 */
+	private int pinDistance(int net) {
+		int a = board.pin(net, 0);
+		int b = board.pin(net, 1);
+		return Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols);
+	}
+
+	/**
+	 * Find the cheapest trace between the pins of a net.
+	 * 
+	 * @param net   net to route
+	 * @param cross false to use only free cells with a BFS, true to also
+	 *              cross other nets' traces at a cost with Dijkstra's algorithm
+	 * @return trace cells from the first pin to the second, or null if none
+	 */
+	private int[] search(int net, boolean cross) {
+		stamp++;
+		int source = board.pin(net, 0);
+		int target = board.pin(net, 1);
+		if (adjacent(source, target)) {
+			return new int[0];
+		}
+		// the BFS runs on the int queue, Dijkstra on a heap of cost << 32 | cell
+		int head = 0;
+		int tail = 0;
+		PriorityQueue<Long> heap = cross ? new PriorityQueue<Long>() : null;
+		seen[source] = stamp;
+		cost[source] = 0;
+		parent[source] = -1;
+		if (cross) {
+			heap.add((long) source);
+		} else {
+			queue[tail++] = source;
+		}
+
+		while (cross ? !heap.isEmpty() : head < tail) {
+			int cell;
+			if (cross) {
+				long entry = heap.poll();
+				cell = (int) entry;
+				if (entry >>> 32 > cost[cell]) {
+					continue; // stale entry
+				}
+			} else {
+				cell = queue[head++];
+			}
+			if (cell != source && adjacent(cell, target)) {
+				return trace(cell);
+			}
+			int row = cell / cols;
+			int col = cell % cols;
+			for (int direction = 0; direction < BoardGrid.DIRECTIONS; direction++) {
+				int nextRow = row + BoardGrid.ROW_STEPS[direction];
+				int nextCol = col + BoardGrid.COL_STEPS[direction];
+				if (nextRow < 0 || nextRow >= rows || nextCol < 0 || nextCol >= cols) {
+					continue;
+				}
+				int next = nextRow * cols + nextCol;
+				int nextOwner = owner[next];
+				if (nextOwner == CLOSED || pin[next] || (nextOwner != FREE && !cross)) {
+					continue;
+				}
+				long nextCost = cost[cell] + 1;
+				if (nextOwner != FREE) {
+					nextCost += CROSSING_COST * (1L + history[next]);
+				}
+				if (seen[next] == stamp && (!cross || cost[next] <= nextCost)) {
+					continue;
+				}
+				seen[next] = stamp;
+				cost[next] = nextCost;
+				parent[next] = cell;
+				if (cross) {
+					heap.add(nextCost << 32 | next);
+				} else {
+					queue[tail++] = next;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param last last trace cell of a search, next to the second pin
+	 * @return trace cells from the first pin to last, following parents
+	 */
+	private int[] trace(int last) {
+		int length = 0;
+		for (int cell = last; parent[cell] != -1; cell = parent[cell]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int cell = last; parent[cell] != -1; cell = parent[cell]) {
+			path[--length] = cell;
+		}
+		return path;
+	}
+
+	/**
+	 * @param a cell index
+	 * @param b cell index
+	 * @return true if the cells share a side
+	 */
+	private boolean adjacent(int a, int b) {
+		int rowDiff = Math.abs(a / cols - b / cols);
+		int colDiff = Math.abs(a % cols - b % cols);
+		return rowDiff + colDiff == 1;
+	}
+
+	/**
+	 * Give the cells of a trace to a net.
+	 * 
+	 * @param net  net being routed
+	 * @param path its trace cells
+	 */
+	private void lay(int net, int[] path) {
+		for (int cell : path) {
+			owner[cell] = net;
+		}
+		paths[net] = path;
+	}
+
+	/**
+	 * Free the trace cells of a net.
+	 * 
+	 * @param net routed net
+	 */
+	private void unlay(int net) {
+		for (int cell : paths[net]) {
+			owner[cell] = FREE;
+		}
+		paths[net] = null;
+	}
+
+	/**
+	 * @param net net number
+	 * @return true if the net has a trace
+	 */
+	public boolean isRouted(int net) {
+		return paths[net] != null;
+	}
+
+	/**
+	 * @param net net number
+	 * @return copy of the trace cells from the first pin to the second, or
+	 *         null if the net is not routed
+	 */
+	public int[] path(int net) {
+		return paths[net] == null ? null : paths[net].clone();
+	}
+
+	/** @return number of nets routed */
+	public int routedCount() {
+		int count = 0;
+		for (int[] path : paths) {
+			if (path != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/** @return total number of trace cells of all routed nets */
+	public int totalLength() {
+		int length = 0;
+		for (int[] path : paths) {
+			if (path != null) {
+				length += path.length;
+			}
+		}
+		return length;
+	}
+
+	/** @return number of routing attempts made */
+	public int attempts() {
+		return attempts;
+	}
+
+	/** @return number of times a routed net was ripped up and rerouted */
+	public int ripUps() {
+		return ripUps;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				int cell = row * cols + col;
+				if (owner[cell] == CLOSED) {
+					str.append("X ");
+				} else if (owner[cell] == FREE) {
+					str.append("O ");
+				} else if (pin[cell]) {
+					int net = owner[cell];
+					str.append(board.pinName(net, cell == board.pin(net, 0) ? 0 : 1)).append(' ');
+				} else if (board.isSinglePair()) {
+					str.append("T ");
+				} else {
+					// trace cells carry the name of their net
+					str.append('T').append(board.netName(owner[cell])).append(' ');
+				}
+			}
+			str.append("\n");
+		}
+		return str.toString();
+	}
+} // class NetRouter
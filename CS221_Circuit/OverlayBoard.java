@@ -0,0 +1,256 @@
+import java.awt.Point;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Read-only view of a CircuitBoard with extra traces laid over it. The base
+ * board is shared by every view made from it and never changed. A view keeps
+ * its trace positions in a persistent trie of bit words: adding a trace
+ * copies the one small leaf holding it and the short chain of nodes above
+ * that leaf, and shares everything else with the view it was made from. A
+ * trace therefore costs about the same on a 1000x1000 board as on a 10x10
+ * one, and a full CircuitBoard is only built when one is asked for.
+ * 
+ * @author Kyle Truschel
+ */
+public class OverlayBoard {
+	/** 64-bit words of trace bits in one leaf of the trie */
+	private static final int LEAF_WORDS = 4;
+	/** log2 of the children of each inner node of the trie */
+	private static final int FANOUT_BITS = 4;
+	private static final int FANOUT = 1 << FANOUT_BITS;
+
+	private final CircuitBoard base;	//shared, never modified
+	private final BitSet blocked;		//shared, open positions this view treats as closed
+	private final int cols;
+	private final int levels;			//inner node levels above the leaves, 0 if one leaf covers the board
+	private final int leafWords;		//length of each leaf, shorter than LEAF_WORDS only if levels is 0
+	private final Object traces;		//root of the trie, a long[] leaf or an Object[] node; null for no traces
+
+	/**
+	 * View of the given board with no traces added. The board is copied once
+	 * so later changes to it cannot leak into the view; make one view per
+	 * search and grow every path of that search from it.
+	 * 
+	 * @param board board to lay traces over
+	 */
+	public OverlayBoard(CircuitBoard board) {
+		this(board, new BitSet());
+	}
+
+	/**
+	 * View of the given board with no traces added, in which the blocked
+	 * positions are not open but still print as they do on the board.
+	 * 
+	 * @param board   board to lay traces over
+	 * @param blocked positions to treat as closed, bit row * cols + col;
+	 *                shared by every view made from this one, never modified
+	 */
+	public OverlayBoard(CircuitBoard board, BitSet blocked) {
+		base = new CircuitBoard(board);
+		cols = base.numCols();
+		this.blocked = blocked;
+		int words = (base.numRows() * cols + 63) / 64;
+		int leaves = (words + LEAF_WORDS - 1) / LEAF_WORDS;
+		int depth = 0;
+		for (long span = 1; span < leaves; span *= FANOUT) {
+			depth++;
+		}
+		levels = depth;
+		leafWords = depth == 0 ? words : LEAF_WORDS;
+		traces = null;
+	}
+
+	/**
+	 * @param previous view to extend
+	 * @param traces   trie root of the new view
+	 */
+	private OverlayBoard(OverlayBoard previous, Object traces) {
+		base = previous.base;
+		blocked = previous.blocked;
+		cols = previous.cols;
+		levels = previous.levels;
+		leafWords = previous.leafWords;
+		this.traces = traces;
+	}
+
+	/**
+	 * @param root trie to look in
+	 * @param bit  position, row * cols + col
+	 * @return true if the trie has a trace at bit
+	 */
+	private boolean isTrace(Object root, int bit) {
+		int word = bit >>> 6;
+		int leaf = word / LEAF_WORDS;
+		Object node = root;
+		for (int level = levels - 1; node != null && level >= 0; level--) {
+			node = ((Object[]) node)[(leaf >>> (level * FANOUT_BITS)) & (FANOUT - 1)];
+		}
+		return node != null && (((long[]) node)[word % LEAF_WORDS] & (1L << bit)) != 0;
+	}
+
+	/**
+	 * Copy the path from a trie node down to the leaf holding bit, setting
+	 * bit in the new leaf. Nodes off that path are shared, not copied.
+	 * 
+	 * @param node  node to copy, null for an empty subtree
+	 * @param level level of node, -1 for a leaf
+	 * @param bit   position to set, row * cols + col
+	 * @return new node with bit set
+	 */
+	private Object withBit(Object node, int level, int bit) {
+		if (level < 0) {
+			long[] words = node == null ? new long[leafWords] : ((long[]) node).clone();
+			words[(bit >>> 6) % LEAF_WORDS] |= 1L << bit;
+			return words;
+		}
+		Object[] children = node == null ? new Object[FANOUT] : ((Object[]) node).clone();
+		int child = ((bit >>> 6) / LEAF_WORDS >>> (level * FANOUT_BITS)) & (FANOUT - 1);
+		children[child] = withBit(children[child], level - 1, bit);
+		return children;
+	}
+
+	/**
+	 * Set bit in a trie that nothing else shares yet, allocating only the
+	 * nodes that are missing.
+	 * 
+	 * @param node  node owned by the caller, null for an empty subtree
+	 * @param level level of node, -1 for a leaf
+	 * @param bit   position to set, row * cols + col
+	 * @return node, or the node allocated for it, with bit set
+	 */
+	private Object setBit(Object node, int level, int bit) {
+		if (level < 0) {
+			long[] words = node == null ? new long[leafWords] : (long[]) node;
+			words[(bit >>> 6) % LEAF_WORDS] |= 1L << bit;
+			return words;
+		}
+		Object[] children = node == null ? new Object[FANOUT] : (Object[]) node;
+		int child = ((bit >>> 6) / LEAF_WORDS >>> (level * FANOUT_BITS)) & (FANOUT - 1);
+		children[child] = setBit(children[child], level - 1, bit);
+		return children;
+	}
+
+	/**
+	 * New view with one more trace, leaving this view unchanged.
+	 * 
+	 * @param row row coordinate
+	 * @param col col coordinate
+	 * @return view with a trace at (row, col)
+	 * @throws OccupiedPositionException if given position is not open
+	 */
+	public OverlayBoard withTrace(int row, int col) {
+		if (!isOpen(row, col)) {
+			throw new OccupiedPositionException("row " + row + ", col " + col + " is not open");
+		}
+		return new OverlayBoard(this, withBit(traces, levels - 1, row * cols + col));
+	}
+
+	/**
+	 * New view with several more traces, leaving this view unchanged. On a
+	 * view with no traces yet, the new trie is built in place rather than
+	 * copied once per point.
+	 * 
+	 * @param points row, column positions to trace
+	 * @return view with a trace at every given position
+	 * @throws OccupiedPositionException if a position is not open or is
+	 *                                   given twice
+	 */
+	public OverlayBoard withTraces(List<Point> points) {
+		Object root = traces;
+		for (Point p : points) {
+			int bit = p.x * cols + p.y;
+			if (!base.isOpen(p.x, p.y) || blocked.get(bit) || isTrace(root, bit)) {
+				throw new OccupiedPositionException("row " + p.x + ", col " + p.y + " is not open");
+			}
+			root = traces == null ? setBit(root, levels - 1, bit) : withBit(root, levels - 1, bit);
+		}
+		return new OverlayBoard(this, root);
+	}
+
+	/**
+	 * Return the char at board position row, col
+	 * 
+	 * @param row row coordinate
+	 * @param col col coordinate
+	 * @return char at row, col
+	 */
+	public char charAt(int row, int col) {
+		return isTrace(traces, row * cols + col) ? 'T' : base.charAt(row, col);
+	}
+
+	/**
+	 * Return whether given board position is open
+	 * 
+	 * @param row row coordinate
+	 * @param col col coordinate
+	 * @return true if position at (row, col) is open in the base board, not
+	 *         blocked and has no trace in this view
+	 */
+	public boolean isOpen(int row, int col) {
+		int bit = row * cols + col;
+		return base.isOpen(row, col) && !isTrace(traces, bit) && !blocked.get(bit);
+	}
+
+	/** @return ending Point(row,col) */
+	public Point getEndingPoint() {
+		return base.getEndingPoint();
+	}
+
+	/** @return number of rows */
+	public int numRows() {
+		return base.numRows();
+	}
+
+	/** @return number of columns */
+	public int numCols() {
+		return cols;
+	}
+
+	/** @return new CircuitBoard with the base contents and this view's traces */
+	public CircuitBoard toCircuitBoard() {
+		CircuitBoard board = new CircuitBoard(base);
+		addTraces(board, traces, levels - 1, 0);
+		return board;
+	}
+
+	/**
+	 * Mark every trace under a trie node on the given board.
+	 * 
+	 * @param board     board to mark
+	 * @param node      node to walk, null for an empty subtree
+	 * @param level     level of node, -1 for a leaf
+	 * @param firstWord index of the first trace word node covers
+	 */
+	private void addTraces(CircuitBoard board, Object node, int level, int firstWord) {
+		if (node == null) {
+			return;
+		}
+		if (level < 0) {
+			long[] words = (long[]) node;
+			for (int word = 0; word < words.length; word++) {
+				long bits = words[word];
+				while (bits != 0) {
+					int bit = (firstWord + word) * 64 + Long.numberOfTrailingZeros(bits);
+					board.makeTrace(bit / cols, bit % cols);
+					bits &= bits - 1;
+				}
+			}
+			return;
+		}
+		Object[] children = (Object[]) node;
+		int childWords = LEAF_WORDS << (level * FANOUT_BITS);
+		for (int child = 0; child < FANOUT; child++) {
+			addTraces(board, children[child], level - 1, firstWord + child * childWords);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return toCircuitBoard().toString();
+	}
+} // class OverlayBoard
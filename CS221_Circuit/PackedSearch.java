@@ -0,0 +1,198 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Breadth-first search for all shortest traces on a CircuitBoard that never
+ * clones the board. One shared, read-only BoardGrid holds the open cells,
+ * BFS distances are kept in a flat int[], and each search state is only a
+ * (cell, parent state) pair stored in growable int[] arrays. Paths are
+ * rebuilt from the parent pointers once a solution is found.
+ * 
+ * Every prefix of a shortest trace is itself a shortest trace to its last
+ * cell, so only states whose length matches the BFS distance of their cell
+ * are kept. That keeps the traces self-avoiding without a visited set per
+ * state and gives exactly the same best paths as the -q search.
+ * 
+ * @author Kyle Truschel
+ */
+public class PackedSearch {
+	/** initial capacity of the state arrays */
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/** shared read-only copy of the board */
+	private final BoardGrid grid;
+	/** cells adjacent to the ending component */
+	private final BitSet goal;
+	/** BFS distance of each cell from the starting component, -1 if unreached */
+	private final int[] dist;
+
+	/** cell index of each search state */
+	private int[] stateCell;
+	/** index of the previous state on the path, -1 for initial states */
+	private int[] stateParent;
+	/** number of search states created */
+	private int stateCount;
+	/** number of search states examined, layer by layer */
+	private int statesRetrieved;
+	/** number of states in the largest layer */
+	private int peakLayer;
+	/** states that ended adjacent to the ending component */
+	private int[] solutions;
+	private int solutionCount;
+	/** length of the best paths, 0 if none were found */
+	private int bestLength;
+
+	/**
+	 * Pack the given board and run the search.
+	 * 
+	 * @param board board to search, not modified
+	 */
+	public PackedSearch(CircuitBoard board) {
+		grid = new BoardGrid(board);
+		goal = new BitSet(grid.cellCount());
+		for (int cell : grid.openNeighbors(grid.endCell())) {
+			goal.set(cell);
+		}
+		dist = new int[grid.cellCount()];
+		Arrays.fill(dist, -1);
+		stateCell = new int[DEFAULT_CAPACITY];
+		stateParent = new int[DEFAULT_CAPACITY];
+		solutions = new int[DEFAULT_CAPACITY];
+		search();
+	}
+
+	/**
+	 * Expand the search one BFS layer at a time, stopping after the first
+	 * layer that contains a solution.
+	 */
+	private void search() {
+		for (int cell : grid.openNeighbors(grid.startCell())) {
+			dist[cell] = 1;
+			addState(cell, -1);
+		}
+
+		int layerStart = 0;
+		int length = 1;
+		while (layerStart < stateCount) {
+			int layerEnd = stateCount;
+			statesRetrieved += layerEnd - layerStart;
+			peakLayer = Math.max(peakLayer, layerEnd - layerStart);
+			// any solution in this layer is a best path
+			for (int state = layerStart; state < layerEnd; state++) {
+				if (goal.get(stateCell[state])) {
+					addSolution(state);
+				}
+			}
+			if (solutionCount > 0) {
+				bestLength = length;
+				return;
+			}
+			// otherwise extend every state of this layer by one cell
+			for (int state = layerStart; state < layerEnd; state++) {
+				for (int i = 0; i < BoardGrid.DIRECTIONS; i++) {
+					int next = grid.openNeighbor(stateCell[state], i);
+					if (next != -1) {
+						if (dist[next] == -1) {
+							dist[next] = length + 1;
+						}
+						if (dist[next] == length + 1) {
+							addState(next, state);
+						}
+					}
+				}
+			}
+			layerStart = layerEnd;
+			length++;
+		}
+	}
+
+	/**
+	 * Append a search state, growing the state arrays as needed.
+	 * 
+	 * @param cell   cell index of the new state
+	 * @param parent previous state on the path
+	 */
+	private void addState(int cell, int parent) {
+		if (stateCount == stateCell.length) {
+			int[] newCell = new int[stateCell.length * 2];
+			int[] newParent = new int[stateParent.length * 2];
+			System.arraycopy(stateCell, 0, newCell, 0, stateCount);
+			System.arraycopy(stateParent, 0, newParent, 0, stateCount);
+			stateCell = newCell;
+			stateParent = newParent;
+		}
+		stateCell[stateCount] = cell;
+		stateParent[stateCount] = parent;
+		stateCount++;
+	}
+
+	/**
+	 * Remember a state that ends adjacent to the ending component.
+	 * 
+	 * @param state solution state
+	 */
+	private void addSolution(int state) {
+		if (solutionCount == solutions.length) {
+			int[] newSolutions = new int[solutions.length * 2];
+			System.arraycopy(solutions, 0, newSolutions, 0, solutionCount);
+			solutions = newSolutions;
+		}
+		solutions[solutionCount++] = state;
+	}
+
+	/**
+	 * Rebuild the path ending in the given state from its parent pointers.
+	 * 
+	 * @param state last state of the path
+	 * @return row, column points from the start of the path to its end
+	 */
+	private ArrayList<Point> getPath(int state) {
+		ArrayList<Point> path = new ArrayList<Point>();
+		for (int s = state; s != -1; s = stateParent[s]) {
+			path.add(grid.toPoint(stateCell[s]));
+		}
+		for (int i = 0, j = path.size() - 1; i < j; i++, j--) {
+			Point temp = path.get(i);
+			path.set(i, path.get(j));
+			path.set(j, temp);
+		}
+		return path;
+	}
+
+	/** @return number of search states created */
+	public int statesCreated() {
+		return stateCount;
+	}
+
+	/** @return number of search states examined */
+	public int statesRetrieved() {
+		return statesRetrieved;
+	}
+
+	/** @return number of states in the largest BFS layer */
+	public int peakLayer() {
+		return peakLayer;
+	}
+
+	/** @return length of the best paths, or 0 if the components cannot be connected */
+	public int bestLength() {
+		return bestLength;
+	}
+
+	/**
+	 * Build a TraceState for each best path found.
+	 * 
+	 * @param board the board that was searched
+	 * @return best paths, empty if the components cannot be connected
+	 */
+	public ArrayList<TraceState> getBestPaths(CircuitBoard board) {
+		ArrayList<TraceState> bestPaths = new ArrayList<TraceState>();
+		OverlayBoard view = new OverlayBoard(board);
+		for (int i = 0; i < solutionCount; i++) {
+			bestPaths.add(new TraceState(view, getPath(solutions[i])));
+		}
+		return bestPaths;
+	}
+} // class PackedSearch
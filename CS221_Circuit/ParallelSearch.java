@@ -0,0 +1,219 @@
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exhaustive search for all shortest traces spread over a ForkJoinPool.
+ * Subtrees of the TraceState search are independent, so each task explores
+ * its subtree depth-first with its own stack and hands one of its waiting
+ * states to a new task whenever the pool runs out of queued work. The state
+ * handed off is the one at the bottom of the stack: the shallowest, and so
+ * the root of the largest subtree still waiting, which keeps the number of
+ * hand-offs low and the work each one carries high. The stack is an
+ * ArrayDeque rather than a Storage because it is taken from at both ends.
+ * 
+ * All workers share the length of the best path found so far through an
+ * AtomicInteger. A state whose length plus its Manhattan distance to '2'
+ * already exceeds that bound cannot lead to a best path and is dropped.
+ * Solutions are collected in a concurrent queue and filtered down to the
+ * final best length once every task is done. Every worker checks a shared
+ * SearchBudget as it goes and stops once it is spent. Each task counts the
+ * states it retrieves and its deepest stack locally and adds them to shared
+ * counters when it finishes, so the counts cost the workers nothing.
+ * 
+ * @author Kyle Truschel
+ */
+public class ParallelSearch {
+	/** row and column offsets of the four neighbors of a cell */
+	private static final int[][] STEPS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+	/** states each worker expands between checks of the budget */
+	private static final int CHECK_INTERVAL = 64;
+
+	private final Point end;
+	/** length of the best solution found so far by any worker */
+	private final AtomicInteger bound = new AtomicInteger(Integer.MAX_VALUE);
+	/** every solution found that was no longer than the bound at the time */
+	private final ConcurrentLinkedQueue<TraceState> solutions = new ConcurrentLinkedQueue<TraceState>();
+	/** number of TraceStates created by all workers */
+	private final LongAdder statesCreated = new LongAdder();
+	/** number of TraceStates taken off the stacks by all workers */
+	private final LongAdder statesRetrieved = new LongAdder();
+	/** most states any one task held on its stack */
+	private final LongAccumulator peakStack = new LongAccumulator(Math::max, 0);
+	/** limits shared by all workers */
+	private final SearchBudget budget;
+
+	/**
+	 * Run the search on the given board.
+	 * 
+	 * @param board   board to search, not modified
+	 * @param threads number of worker threads, at least 1
+	 */
+	public ParallelSearch(CircuitBoard board, int threads) {
+		this(board, threads, new SearchBudget());
+	}
+
+	/**
+	 * Run the search on the given board until it is done or the budget runs
+	 * out, in which case getBestPaths returns the best paths found so far.
+	 * 
+	 * @param board   board to search, not modified
+	 * @param threads number of worker threads, at least 1
+	 * @param budget  limits on the search, shared by every worker
+	 */
+	public ParallelSearch(CircuitBoard board, int threads, SearchBudget budget) {
+		this.budget = budget;
+		end = board.getEndingPoint();
+		ArrayList<TraceState> initial = new ArrayList<TraceState>();
+		BoardPruner pruner = new BoardPruner(board);
+		if (!pruner.hasPath()) {
+			return;
+		}
+		OverlayBoard startingView = pruner.startingView();
+		Point start = board.getStartingPoint();
+		for (int[] step : STEPS) {
+			if (startingView.isOpen(start.x + step[0], start.y + step[1])) {
+				initial.add(new TraceState(startingView, start.x + step[0], start.y + step[1]));
+				statesCreated.increment();
+			}
+		}
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					ArrayList<TraceTask> tasks = new ArrayList<TraceTask>();
+					for (TraceState state : initial) {
+						tasks.add(new TraceTask(state));
+					}
+					invokeAll(tasks);
+				}
+			});
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * @param state search state
+	 * @return lower bound on the length of any solution extending state
+	 */
+	private int estimate(TraceState state) {
+		return state.pathLength() + Math.abs(state.getRow() - end.x) + Math.abs(state.getCol() - end.y) - 1;
+	}
+
+	/**
+	 * Record a solution and lower the shared bound if it is shorter.
+	 * 
+	 * @param state solution state
+	 */
+	private void addSolution(TraceState state) {
+		int length = state.pathLength();
+		if (bound.accumulateAndGet(length, Math::min) == length) {
+			solutions.add(state);
+		}
+	}
+
+	/** @return number of TraceStates created while searching */
+	public long statesCreated() {
+		return statesCreated.sum();
+	}
+
+	/** @return number of TraceStates retrieved from the workers' stacks */
+	public long statesRetrieved() {
+		return statesRetrieved.sum();
+	}
+
+	/** @return most states any one task held on its stack at once */
+	public int peakStack() {
+		return (int) peakStack.get();
+	}
+
+	/** @return number of solutions found, including those longer than the best */
+	public int solutionsFound() {
+		return solutions.size();
+	}
+
+	/** @return all shortest traces, empty if the components cannot be connected */
+	public ArrayList<TraceState> getBestPaths() {
+		ArrayList<TraceState> bestPaths = new ArrayList<TraceState>();
+		int best = bound.get();
+		for (TraceState state : solutions) {
+			if (state.pathLength() == best) {
+				bestPaths.add(state);
+			}
+		}
+		return bestPaths;
+	}
+
+	/**
+	 * Depth-first exploration of the subtree below one TraceState.
+	 */
+	private class TraceTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final TraceState root;
+
+		/**
+		 * @param root first state of the subtree to explore
+		 */
+		TraceTask(TraceState root) {
+			this.root = root;
+		}
+
+		@Override
+		protected void compute() {
+			ArrayDeque<TraceState> stateStore = new ArrayDeque<TraceState>();
+			// forked tasks not yet known to be done, oldest first
+			ArrayDeque<TraceTask> forked = new ArrayDeque<TraceTask>();
+			stateStore.push(root);
+			// summing the shared counter costs more than a state, so the budget
+			// is checked on the first state and every CHECK_INTERVAL after it
+			int retrieved = 0;
+			int deepest = 1;
+			while (!stateStore.isEmpty()
+					&& (retrieved % CHECK_INTERVAL != 0 || !budget.exhausted(statesCreated.sum()))) {
+				TraceState currentState = stateStore.pop();
+				retrieved++;
+				if (estimate(currentState) > bound.get()) {
+					continue;
+				}
+				if (currentState.isSolution()) {
+					addSolution(currentState);
+					continue;
+				}
+				int x = currentState.getRow();
+				int y = currentState.getCol();
+				for (int[] step : STEPS) {
+					if (currentState.isOpen(x + step[0], y + step[1])) {
+						stateStore.push(new TraceState(currentState, x + step[0], y + step[1]));
+						statesCreated.increment();
+					}
+				}
+				deepest = Math.max(deepest, stateStore.size());
+				// share the shallowest waiting state when other workers have nothing queued
+				if (stateStore.size() > 1 && getSurplusQueuedTaskCount() == 0) {
+					TraceTask task = new TraceTask(stateStore.pollLast());
+					task.fork();
+					forked.add(task);
+				}
+				// only tasks still running are held on to
+				while (!forked.isEmpty() && forked.peekFirst().isDone()) {
+					forked.pollFirst().join();
+				}
+			}
+			for (TraceTask task : forked) {
+				task.join();
+			}
+			statesRetrieved.add(retrieved);
+			peakStack.accumulate(deepest);
+		}
+	}
+} // class ParallelSearch
@@ -0,0 +1,276 @@
+import java.awt.Point;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Reads and writes CircuitBoards in a run-length encoded binary format. A
+ * file is a header followed by runs of equal positions in row-major order:
+ * 
+ * - header: the 4 bytes "CBRL", then rows, cols, start row, start col,
+ * end row and end col as big-endian 32-bit ints
+ * - runs: one byte holding the character in its top 2 bits (0 'O', 1 'X',
+ * 2 'T'), a continuation flag in bit 5 and the low 5 bits of the run length
+ * minus one; when the flag is set the rest of the length minus one follows
+ * as an unsigned LEB128 varint, 7 bits per byte, lowest first
+ * 
+ * A run of up to 32 positions takes one byte, so open areas and walls cost
+ * next to nothing. '1' and '2' come from the header; the runs still cover
+ * their positions, and the writer lets whatever run is passing carry on
+ * through them so they never split one. Their value in the runs is ignored
+ * when reading.
+ * 
+ * @author Kyle Truschel
+ */
+public class RunLengthBoardFormat {
+	/** first bytes of every run-length file */
+	public static final byte[] MAGIC = {'C', 'B', 'R', 'L'};
+	/** characters a run can hold, indexed by the top 2 bits of its first byte */
+	private static final String RUN_CHARS = "OXT";
+	/** flag in a run's first byte marking that more length bytes follow */
+	private static final int MORE = 0x20;
+	/** bits of the run length minus one held by a run's first byte */
+	private static final int FIRST_BITS = 5;
+	/** bytes read from the stream at a time */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final String name;
+	private final InputStream in;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	/** offset of the next unread byte in buffer */
+	private int pos;
+	/** number of valid bytes in buffer */
+	private int limit;
+
+	/**
+	 * @param name name of the source, for messages
+	 * @param in   stream positioned at the start of the board
+	 */
+	private RunLengthBoardFormat(String name, InputStream in) {
+		this.name = name;
+		this.in = in;
+	}
+
+	/**
+	 * Read a run-length board file.
+	 * 
+	 * @param filename file in the run-length format
+	 * @return the board read from the file
+	 * @throws FileNotFoundException      if the file cannot be opened or read
+	 * @throws InvalidFileFormatException for any file formatting or content issue
+	 */
+	public static CircuitBoard read(String filename) throws FileNotFoundException {
+		try (InputStream in = new FileInputStream(filename)) {
+			return read(in, filename);
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new FileNotFoundException(filename + " (" + e.getClass().getSimpleName() + ")");
+		}
+	}
+
+	/**
+	 * Read a run-length board from a stream, which is left open. The stream
+	 * is read in large blocks, so it need not be buffered.
+	 * 
+	 * @param in   stream positioned at the start of the board
+	 * @param name name of the source, for messages
+	 * @return the board read from the stream
+	 * @throws IOException                if the stream cannot be read
+	 * @throws InvalidFileFormatException for any formatting or content issue
+	 */
+	public static CircuitBoard read(InputStream in, String name) throws IOException {
+		return new RunLengthBoardFormat(name, in).parse();
+	}
+
+	/**
+	 * Write a board in the run-length format, one run at a time. The stream
+	 * is not closed and should be buffered.
+	 * 
+	 * @param board board to write
+	 * @param out   stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public static void write(CircuitBoard board, OutputStream out) throws IOException {
+		int rows = board.numRows();
+		int cols = board.numCols();
+		Point start = board.getStartingPoint();
+		Point end = board.getEndingPoint();
+		out.write(MAGIC);
+		for (int value : new int[] {rows, cols, start.x, start.y, end.x, end.y}) {
+			writeInt(out, value);
+		}
+
+		int runCode = -1;
+		int runLength = 0;
+		for (int row = 0; row < rows; row++) {
+			for (int col = 0; col < cols; col++) {
+				char value = board.charAt(row, col);
+				int code = RUN_CHARS.indexOf(value);
+				if (code == -1) {
+					// '1' or '2', carried by the run passing through
+					code = runCode == -1 ? 0 : runCode;
+				}
+				if (code == runCode) {
+					runLength++;
+				} else {
+					if (runLength > 0) {
+						writeRun(out, runCode, runLength);
+					}
+					runCode = code;
+					runLength = 1;
+				}
+			}
+		}
+		writeRun(out, runCode, runLength);
+	}
+
+	/**
+	 * @param out    stream to write to
+	 * @param code   index of the run's character in RUN_CHARS
+	 * @param length number of positions in the run, at least 1
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writeRun(OutputStream out, int code, int length) throws IOException {
+		int rest = (length - 1) >>> FIRST_BITS;
+		out.write(code << 6 | (rest != 0 ? MORE : 0) | ((length - 1) & ((1 << FIRST_BITS) - 1)));
+		while (rest != 0) {
+			int low = rest & 0x7F;
+			rest >>>= 7;
+			out.write(rest != 0 ? low | 0x80 : low);
+		}
+	}
+
+	/**
+	 * @param out   stream to write to
+	 * @param value int to write, high byte first
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writeInt(OutputStream out, int value) throws IOException {
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	/**
+	 * @return the board described by the stream
+	 * @throws IOException if the stream cannot be read
+	 */
+	private CircuitBoard parse() throws IOException {
+		for (byte b : MAGIC) {
+			if (read() != b) {
+				throw new InvalidFileFormatException(name + " is not a run-length board file.");
+			}
+		}
+		int rows = readInt();
+		int cols = readInt();
+		Point start = new Point(readInt(), readInt());
+		Point end = new Point(readInt(), readInt());
+		if (rows < 0 || cols < 0) {
+			throw new InvalidFileFormatException(name + " rows and columns are not integers.");
+		}
+		if ((long) rows * cols > Integer.MAX_VALUE) {
+			throw new InvalidFileFormatException(name + " has too many positions.");
+		}
+		if (!inside(start, rows, cols) || !inside(end, rows, cols) || start.equals(end)) {
+			throw new InvalidFileFormatException(name + " does not contain a start or end point.");
+		}
+
+		byte[] cells = new byte[rows * cols];
+		int filled = 0;
+		while (filled < cells.length) {
+			int first = read();
+			if (first == -1) {
+				throw new InvalidFileFormatException(name + " ends before its last position.");
+			}
+			int code = first >>> 6;
+			if (code >= RUN_CHARS.length()) {
+				throw new InvalidFileFormatException(name + " contains invalid characters.");
+			}
+			long length = (first & ((1 << FIRST_BITS) - 1)) + 1L;
+			if ((first & MORE) != 0) {
+				length += readVarint() << FIRST_BITS;
+			}
+			if (length > cells.length - filled) {
+				throw new InvalidFileFormatException(name + " has a run past its last position.");
+			}
+			int runEnd = filled + (int) length;
+			Arrays.fill(cells, filled, runEnd, (byte) RUN_CHARS.charAt(code));
+			filled = runEnd;
+		}
+		if (read() != -1) {
+			throw new InvalidFileFormatException(name + " contains more than " + rows + " rows.");
+		}
+		cells[start.x * cols + start.y] = '1';
+		cells[end.x * cols + end.y] = '2';
+		return new CircuitBoard(rows, cols, cells, start, end);
+	}
+
+	/**
+	 * @param p    position from the header
+	 * @param rows number of rows
+	 * @param cols number of columns
+	 * @return true if p is on the board
+	 */
+	private static boolean inside(Point p, int rows, int cols) {
+		return p.x >= 0 && p.x < rows && p.y >= 0 && p.y < cols;
+	}
+
+	/**
+	 * @return the next big-endian 32-bit int of the stream
+	 * @throws IOException if the stream cannot be read
+	 */
+	private int readInt() throws IOException {
+		int value = 0;
+		for (int i = 0; i < 4; i++) {
+			int b = read();
+			if (b == -1) {
+				throw new InvalidFileFormatException(name + " ends inside its header.");
+			}
+			value = value << 8 | b;
+		}
+		return value;
+	}
+
+	/**
+	 * @return the value of the unsigned LEB128 varint at the stream's position
+	 * @throws IOException if the stream cannot be read
+	 */
+	private long readVarint() throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = read();
+			if (b == -1) {
+				throw new InvalidFileFormatException(name + " ends before its last position.");
+			}
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new InvalidFileFormatException(name + " has a run past its last position.");
+	}
+
+	/**
+	 * @return the next byte of the stream, or -1 at its end
+	 * @throws IOException if the stream cannot be read
+	 */
+	private int read() throws IOException {
+		if (pos == limit) {
+			int count = in.read(buffer);
+			while (count == 0) {
+				count = in.read(buffer);
+			}
+			if (count < 0) {
+				return -1;
+			}
+			pos = 0;
+			limit = count;
+		}
+		return buffer[pos++] & 0xFF;
+	}
+} // class RunLengthBoardFormat
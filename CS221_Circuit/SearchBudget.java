@@ -0,0 +1,97 @@
+/**
+ * Limits on how long a search may run, checked by the search itself each
+ * time it takes a state out of its Storage. A search that finds its budget
+ * spent stops where it is and returns the best paths found so far; the
+ * budget then says which limit ended it, and those paths are partial: they
+ * may be fewer than all the shortest paths, or longer than the shortest.
+ * 
+ * A budget can also be cancelled from another thread, which stops the
+ * search at its next check. One budget can be shared by the workers of a
+ * parallel search. The time limit is counted from when the budget is made.
+ * 
+ * @author Kyle Truschel
+ */
+public class SearchBudget {
+	/** limits that can stop a search early */
+	public static enum Limit {
+		time, states, cancelled
+	}
+
+	/** System.nanoTime() at which time runs out, meaningful if timed */
+	private final long deadline;
+	private final boolean timed;
+	/** most TraceStates the search may create, 0 for no limit */
+	private final long maxStates;
+	/** set by cancel(), seen by the search at its next check */
+	private volatile boolean cancelled;
+	/** limit that stopped the search, null while it may go on */
+	private volatile Limit reached;
+
+	/** Budget with no limits, which only stops a search if cancelled. */
+	public SearchBudget() {
+		this(0, 0);
+	}
+
+	/**
+	 * @param millis    milliseconds the search may run from now, 0 for no limit
+	 * @param maxStates most TraceStates the search may create, 0 for no limit
+	 * @throws IllegalArgumentException if a limit is negative
+	 */
+	public SearchBudget(long millis, long maxStates) {
+		if (millis < 0 || maxStates < 0) {
+			throw new IllegalArgumentException("limits must not be negative");
+		}
+		timed = millis > 0;
+		deadline = System.nanoTime() + millis * 1_000_000;
+		this.maxStates = maxStates;
+	}
+
+	/**
+	 * Check the budget from inside a search loop.
+	 * 
+	 * @param statesCreated TraceStates the search has created so far
+	 * @return true if the search must stop now
+	 */
+	public boolean exhausted(long statesCreated) {
+		if (reached != null) {
+			return true;
+		}
+		if (cancelled) {
+			stop(Limit.cancelled);
+		} else if (maxStates > 0 && statesCreated >= maxStates) {
+			stop(Limit.states);
+		} else if (timed && System.nanoTime() - deadline >= 0) {
+			stop(Limit.time);
+		}
+		return reached != null;
+	}
+
+	/**
+	 * Stop the search using this budget at its next check. A search that
+	 * has already finished is not affected and its paths stay complete.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Record the first limit reached; later ones do not replace it.
+	 * 
+	 * @param limit limit reached
+	 */
+	private synchronized void stop(Limit limit) {
+		if (reached == null) {
+			reached = limit;
+		}
+	}
+
+	/** @return limit that stopped the search, or null if none did (yet) */
+	public Limit reached() {
+		return reached;
+	}
+
+	/** @return true if the search stopped early and its paths are partial */
+	public boolean isPartial() {
+		return reached != null;
+	}
+} // class SearchBudget
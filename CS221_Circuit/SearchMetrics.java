@@ -0,0 +1,364 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumSet;
+import java.util.Locale;
+
+/**
+ * Counters and timings for one CircuitTracer run, filled in by the search
+ * as it goes so different strategies can be compared on the same board.
+ * 
+ * Not every strategy keeps every counter, so a search first declares the
+ * counters it keeps and the others are reported as n/a (null in JSON)
+ * rather than as a misleading 0. Every search that lists paths counts the
+ * TraceStates it created and retrieved, its peak frontier and the solutions
+ * it found, except -d, which walks a DAG and only builds one TraceState per
+ * path; counting paths (-n) or streaming them (-l) keeps no counters at
+ * all. Storage resizes are kept by the searches that run on a Storage: -s
+ * and -q without threads, -a, -r and -b. Discarded solutions are kept by the
+ * searches that can reach a path longer than the best: -s, -q and -r.
+ * Duplicate states dropped are kept by -s and -q with a transposition table
+ * and by -a stopping at the first path, for states reaching a cell already
+ * expanded. The peak frontier is the peak Storage size for a single
+ * Storage, both Storages' peaks added for -b, the largest layer for -f, the
+ * largest open list for -j and the deepest stack of any one task for -p.
+ * 
+ * A run whose SearchBudget ran out records the limit it hit, and its paths
+ * are partial. Each phase records its wall time and the bytes the calling
+ * thread allocated during it, where the JVM can report that; allocation by
+ * worker threads of a parallel search is not included.
+ * 
+ * A SearchMetrics belongs to one run and is not safe to share between
+ * threads.
+ * 
+ * @author Kyle Truschel
+ */
+public class SearchMetrics {
+	/** stages of a run that are timed separately */
+	public static enum Phase {
+		parse, search, output
+	}
+
+	/** counters that only some strategies keep, named as in the JSON */
+	public static enum Counter {
+		statesCreated, statesRetrieved, peakFrontier, storageResizes, solutionsFound, solutionsDiscarded,
+		duplicatesDropped
+	}
+
+	private long statesCreated;
+	private long statesRetrieved;
+	private int peakFrontier;
+	private int storageResizes;
+	private long solutionsFound;
+	private long solutionsDiscarded;
+	private long duplicatesDropped;
+	/** limit that stopped the search early, null if it ran to the end */
+	private SearchBudget.Limit stoppedBy;
+	/** counters the search keeps, the others are not applicable */
+	private final EnumSet<Counter> kept = EnumSet.noneOf(Counter.class);
+	private final long[] phaseNanos = new long[Phase.values().length];
+	private final long[] phaseBytes = new long[Phase.values().length];
+
+	/** phase being timed, null between phases */
+	private Phase current;
+	private long phaseStart;
+	private long phaseStartBytes;
+
+	/**
+	 * Declare counters the search keeps, so they are reported even when 0.
+	 * 
+	 * @param counters counters kept by the search
+	 */
+	public void keeps(Counter... counters) {
+		for (Counter counter : counters) {
+			kept.add(counter);
+		}
+	}
+
+	/**
+	 * @param counter a counter
+	 * @return true if the search keeps counter, false if it is not applicable
+	 */
+	public boolean isKept(Counter counter) {
+		return kept.contains(counter);
+	}
+
+	/**
+	 * @param counter a counter
+	 * @return value of counter
+	 */
+	public long count(Counter counter) {
+		switch (counter) {
+			case statesCreated:
+				return statesCreated;
+			case statesRetrieved:
+				return statesRetrieved;
+			case peakFrontier:
+				return peakFrontier;
+			case storageResizes:
+				return storageResizes;
+			case solutionsFound:
+				return solutionsFound;
+			case solutionsDiscarded:
+				return solutionsDiscarded;
+			default:
+				return duplicatesDropped;
+		}
+	}
+
+	/**
+	 * @param counter a counter
+	 * @return value of counter as text, n/a if the search does not keep it
+	 */
+	public String report(Counter counter) {
+		return isKept(counter) ? Long.toString(count(counter)) : "n/a";
+	}
+
+	/** Record one TraceState created. */
+	public void stateCreated() {
+		statesCreated++;
+	}
+
+	/**
+	 * Record TraceStates created by a search that counts them itself.
+	 * 
+	 * @param count number of TraceStates created
+	 */
+	public void addStatesCreated(long count) {
+		statesCreated += count;
+	}
+
+	/** Record one TraceState retrieved from Storage. */
+	public void stateRetrieved() {
+		statesRetrieved++;
+	}
+
+	/**
+	 * Record TraceStates retrieved by a search that counts them itself.
+	 * 
+	 * @param count number of TraceStates retrieved
+	 */
+	public void addStatesRetrieved(long count) {
+		statesRetrieved += count;
+	}
+
+	/**
+	 * Record the largest number of states a Storage held.
+	 * 
+	 * @param size peak Storage.size() of a search
+	 */
+	public void frontierPeak(int size) {
+		peakFrontier = Math.max(peakFrontier, size);
+	}
+
+	/**
+	 * Record how often a Storage had to grow its array.
+	 * 
+	 * @param count Storage.resizeCount() of a search
+	 */
+	public void storageResized(int count) {
+		storageResizes += count;
+	}
+
+	/** Record one solution reached by the search. */
+	public void solutionFound() {
+		solutionsFound++;
+	}
+
+	/**
+	 * Record solutions found by a search that counts them itself.
+	 * 
+	 * @param count number of solutions found
+	 */
+	public void addSolutionsFound(long count) {
+		solutionsFound += count;
+	}
+
+	/**
+	 * Record solutions found but dropped because a shorter one exists.
+	 * 
+	 * @param count number of solutions dropped
+	 */
+	public void solutionsDiscarded(long count) {
+		solutionsDiscarded += count;
+	}
+
+	/**
+	 * Record TraceStates dropped because the same state was stored before.
+	 * 
+	 * @param count number of states dropped
+	 */
+	public void duplicatesDropped(long count) {
+		duplicatesDropped += count;
+	}
+
+	/**
+	 * Record the limit that stopped the search before it was done.
+	 * 
+	 * @param limit limit reached, or null if the search ran to the end
+	 */
+	public void stoppedBy(SearchBudget.Limit limit) {
+		stoppedBy = limit;
+	}
+
+	/**
+	 * Start timing a phase, ending any phase still being timed.
+	 * 
+	 * @param phase phase that starts now
+	 */
+	public void startPhase(Phase phase) {
+		endPhase();
+		current = phase;
+		phaseStartBytes = allocatedBytes();
+		phaseStart = System.nanoTime();
+	}
+
+	/** Stop timing the current phase, if any. Phases may be timed more than once. */
+	public void endPhase() {
+		if (current == null) {
+			return;
+		}
+		phaseNanos[current.ordinal()] += System.nanoTime() - phaseStart;
+		long bytes = allocatedBytes();
+		if (bytes >= 0 && phaseStartBytes >= 0) {
+			phaseBytes[current.ordinal()] += bytes - phaseStartBytes;
+		}
+		current = null;
+	}
+
+	/**
+	 * @return bytes allocated so far by the calling thread, or -1 if the JVM
+	 *         cannot tell
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+			if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+				return threads.getCurrentThreadAllocatedBytes();
+			}
+		}
+		return -1;
+	}
+
+	/** @return number of TraceStates created */
+	public long statesCreated() {
+		return statesCreated;
+	}
+
+	/** @return number of TraceStates retrieved from Storage */
+	public long statesRetrieved() {
+		return statesRetrieved;
+	}
+
+	/** @return largest Storage.size() seen */
+	public int peakFrontier() {
+		return peakFrontier;
+	}
+
+	/** @return number of times a Storage grew its array */
+	public int storageResizes() {
+		return storageResizes;
+	}
+
+	/** @return number of solutions reached, kept or not */
+	public long solutionsFound() {
+		return solutionsFound;
+	}
+
+	/** @return number of solutions dropped for a shorter one */
+	public long solutionsDiscarded() {
+		return solutionsDiscarded;
+	}
+
+	/** @return number of TraceStates dropped as duplicates */
+	public long duplicatesDropped() {
+		return duplicatesDropped;
+	}
+
+	/** @return limit that stopped the search early, or null if none did */
+	public SearchBudget.Limit stoppedBy() {
+		return stoppedBy;
+	}
+
+	/** @return true if the search stopped early and its paths are partial */
+	public boolean isPartial() {
+		return stoppedBy != null;
+	}
+
+	/**
+	 * @param phase phase of the run
+	 * @return wall time spent in the phase, in nanoseconds
+	 */
+	public long nanos(Phase phase) {
+		return phaseNanos[phase.ordinal()];
+	}
+
+	/**
+	 * @param phase phase of the run
+	 * @return approximate bytes allocated by the calling thread in the phase
+	 */
+	public long bytesAllocated(Phase phase) {
+		return phaseBytes[phase.ordinal()];
+	}
+
+	/** @return approximate bytes allocated by the calling thread in all phases */
+	public long bytesAllocated() {
+		long total = 0;
+		for (long bytes : phaseBytes) {
+			total += bytes;
+		}
+		return total;
+	}
+
+	/**
+	 * @param nanos time in nanoseconds
+	 * @return time in milliseconds with three decimals
+	 */
+	public static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+	}
+
+	/** @return metrics as a single JSON object */
+	public String toJson() {
+		StringBuilder json = new StringBuilder("{");
+		for (Counter counter : Counter.values()) {
+			json.append('"').append(counter).append("\":");
+			json.append(isKept(counter) ? Long.toString(count(counter)) : "null").append(',');
+		}
+		json.append("\"partial\":").append(isPartial());
+		json.append(",\"stoppedBy\":").append(stoppedBy == null ? "null" : "\"" + stoppedBy + "\"");
+		json.append(",\"bytesAllocated\":").append(bytesAllocated());
+		json.append(",\"phases\":{");
+		for (Phase phase : Phase.values()) {
+			if (phase.ordinal() > 0) {
+				json.append(',');
+			}
+			json.append('"').append(phase).append("\":{\"ms\":").append(millis(nanos(phase)));
+			json.append(",\"bytesAllocated\":").append(bytesAllocated(phase)).append('}');
+		}
+		return json.append("}}").toString();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append("States created: ").append(report(Counter.statesCreated)).append("\n");
+		str.append("States retrieved: ").append(report(Counter.statesRetrieved)).append("\n");
+		str.append("Peak storage size: ").append(report(Counter.peakFrontier)).append("\n");
+		str.append("Storage resizes: ").append(report(Counter.storageResizes)).append("\n");
+		str.append("Solutions found: ").append(report(Counter.solutionsFound)).append("\n");
+		str.append("Solutions discarded: ").append(report(Counter.solutionsDiscarded)).append("\n");
+		str.append("Duplicate states dropped: ").append(report(Counter.duplicatesDropped)).append("\n");
+		str.append("Partial result: ").append(stoppedBy == null ? "no" : "yes, stopped by " + stoppedBy)
+				.append("\n");
+		for (Phase phase : Phase.values()) {
+			str.append("Time to ").append(phase).append(": ").append(millis(nanos(phase))).append(" ms, ");
+			str.append(bytesAllocated(phase)).append(" bytes allocated\n");
+		}
+		return str.toString();
+	}
+} // class SearchMetrics
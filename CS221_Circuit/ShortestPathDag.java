@@ -0,0 +1,316 @@
+import java.awt.Point;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * All shortest traces of a CircuitBoard, found without expanding every
+ * self-avoiding path. One BFS runs from the cells next to '1' and one from
+ * the cells next to '2'. A cell lies on a shortest trace exactly when its two
+ * distances add up to the best length plus one, and the edges between such
+ * cells that step one layer further from '1' form a DAG whose source to sink
+ * paths are the shortest traces. Building the DAG is linear in the board
+ * size; the traces themselves are enumerated lazily, one DFS step per cell.
+ * 
+ * @author Kyle Truschel
+ */
+public class ShortestPathDag implements Iterable<TraceState> {
+	private final CircuitBoard board;
+	private final BoardGrid grid;
+	/** BFS distance from the cells next to '1', -1 if unreachable */
+	private final int[] fromStart;
+	/** BFS distance from the cells next to '2', -1 if unreachable */
+	private final int[] fromEnd;
+	/** number of traces in a shortest path, 0 if there is none */
+	private final int bestLength;
+	/** bit i is set if the neighbor in direction i is the next cell of some shortest trace */
+	private final byte[] successors;
+	/** first cells of the shortest traces */
+	private final int[] sources;
+
+	/**
+	 * Build the shortest path DAG for the given board.
+	 * 
+	 * @param board board to search, not modified
+	 */
+	public ShortestPathDag(CircuitBoard board) {
+		this(board, new BoardGrid(board));
+	}
+
+	/**
+	 * @param board board to search, not modified
+	 * @param grid  snapshot of the board
+	 */
+	private ShortestPathDag(CircuitBoard board, BoardGrid grid) {
+		this(board, grid, grid.distancesFrom(grid.openNeighbors(grid.startCell())),
+				grid.distancesFrom(grid.openNeighbors(grid.endCell())));
+	}
+
+	/**
+	 * Build the DAG from distances that are already known, as repaired by
+	 * IncrementalTracer. The DAG takes ownership of both arrays.
+	 * 
+	 * @param board     board to search, not modified
+	 * @param grid      snapshot of the board
+	 * @param fromStart BFS distance of every cell from the cells next to '1'
+	 * @param fromEnd   BFS distance of every cell from the cells next to '2'
+	 */
+	ShortestPathDag(CircuitBoard board, BoardGrid grid, int[] fromStart, int[] fromEnd) {
+		this.board = board;
+		this.grid = grid;
+		this.fromStart = fromStart;
+		this.fromEnd = fromEnd;
+
+		// the best length is the closest cell to '1' that touches '2'
+		int best = 0;
+		for (int cell : grid.openNeighbors(grid.endCell())) {
+			if (fromStart[cell] != -1 && (best == 0 || fromStart[cell] < best)) {
+				best = fromStart[cell];
+			}
+		}
+		bestLength = best;
+
+		successors = new byte[grid.cellCount()];
+		ArrayList<Integer> firstCells = new ArrayList<Integer>();
+		if (bestLength > 0) {
+			for (int cell = 0; cell < grid.cellCount(); cell++) {
+				if (!onShortestPath(cell)) {
+					continue;
+				}
+				if (fromStart[cell] == 1) {
+					firstCells.add(cell);
+				}
+				for (int i = 0; i < BoardGrid.DIRECTIONS; i++) {
+					int next = grid.openNeighbor(cell, i);
+					if (next != -1 && onShortestPath(next) && fromStart[next] == fromStart[cell] + 1) {
+						successors[cell] |= 1 << i;
+					}
+				}
+			}
+		}
+		sources = new int[firstCells.size()];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = firstCells.get(i);
+		}
+	}
+
+	/**
+	 * @param cell cell index
+	 * @return true if the cell is part of at least one shortest trace
+	 */
+	private boolean onShortestPath(int cell) {
+		return fromStart[cell] != -1 && fromEnd[cell] != -1 && fromStart[cell] + fromEnd[cell] == bestLength + 1;
+	}
+
+	/** @return number of traces in a shortest path, or 0 if the components cannot be connected */
+	public int bestLength() {
+		return bestLength;
+	}
+
+	/**
+	 * Count the shortest traces without enumerating them. The number of
+	 * traces reaching a cell is the sum over its DAG predecessors, so one
+	 * pass over the cells in order of distance from '1' is enough. Counts
+	 * are kept in longs and the pass is repeated with BigIntegers only if
+	 * a long would overflow.
+	 * 
+	 * @return number of shortest traces, 0 if the components cannot be connected
+	 */
+	public BigInteger countPaths() {
+		if (bestLength == 0) {
+			return BigInteger.ZERO;
+		}
+		int[] order = layerOrder();
+		try {
+			long[] ways = new long[grid.cellCount()];
+			long total = 0;
+			for (int cell : sources) {
+				ways[cell] = 1;
+			}
+			for (int cell : order) {
+				if (fromStart[cell] == bestLength) {
+					total = Math.addExact(total, ways[cell]);
+				}
+				for (int i = 0; i < BoardGrid.DIRECTIONS; i++) {
+					if ((successors[cell] & (1 << i)) != 0) {
+						int next = grid.neighbor(cell, i);
+						ways[next] = Math.addExact(ways[next], ways[cell]);
+					}
+				}
+			}
+			return BigInteger.valueOf(total);
+		} catch (ArithmeticException e) {
+			// too many paths for a long, count again with BigIntegers
+			BigInteger[] ways = new BigInteger[grid.cellCount()];
+			BigInteger total = BigInteger.ZERO;
+			for (int cell : sources) {
+				ways[cell] = BigInteger.ONE;
+			}
+			for (int cell : order) {
+				if (ways[cell] == null) {
+					continue;
+				}
+				if (fromStart[cell] == bestLength) {
+					total = total.add(ways[cell]);
+				}
+				for (int i = 0; i < BoardGrid.DIRECTIONS; i++) {
+					if ((successors[cell] & (1 << i)) != 0) {
+						int next = grid.neighbor(cell, i);
+						ways[next] = (ways[next] == null ? ways[cell] : ways[next].add(ways[cell]));
+					}
+				}
+			}
+			return total;
+		}
+	}
+
+	/**
+	 * Counting sort of the DAG cells by distance from '1'.
+	 * 
+	 * @return cells on a shortest trace, nearest to '1' first
+	 */
+	private int[] layerOrder() {
+		int[] layerSize = new int[bestLength + 2];
+		int count = 0;
+		for (int cell = 0; cell < grid.cellCount(); cell++) {
+			if (onShortestPath(cell)) {
+				layerSize[fromStart[cell] + 1]++;
+				count++;
+			}
+		}
+		// layerSize[d] becomes the first slot of layer d
+		for (int d = 1; d < layerSize.length; d++) {
+			layerSize[d] += layerSize[d - 1];
+		}
+		int[] order = new int[count];
+		for (int cell = 0; cell < grid.cellCount(); cell++) {
+			if (onShortestPath(cell)) {
+				order[layerSize[fromStart[cell]]++] = cell;
+			}
+		}
+		return order;
+	}
+
+	/** @return the flat grid the DAG was built on */
+	public BoardGrid getGrid() {
+		return grid;
+	}
+
+	/**
+	 * @return iterator over the cell indices of every shortest trace, in order
+	 *         from the start; each call to next() returns a new array
+	 */
+	public Iterator<int[]> pathIterator() {
+		return new PathIterator();
+	}
+
+	/**
+	 * @return iterator building a TraceState for every shortest trace
+	 */
+	@Override
+	public Iterator<TraceState> iterator() {
+		return new Iterator<TraceState>() {
+			private final Iterator<int[]> paths = new PathIterator();
+			/** one view of the board under every path */
+			private final OverlayBoard view = new OverlayBoard(board);
+
+			@Override
+			public boolean hasNext() {
+				return paths.hasNext();
+			}
+
+			@Override
+			public TraceState next() {
+				int[] cells = paths.next();
+				ArrayList<Point> points = new ArrayList<Point>(cells.length);
+				for (int cell : cells) {
+					points.add(grid.toPoint(cell));
+				}
+				return new TraceState(view, points);
+			}
+		};
+	}
+
+	/** @return all shortest traces collected into a list */
+	public ArrayList<TraceState> getBestPaths() {
+		ArrayList<TraceState> bestPaths = new ArrayList<TraceState>();
+		for (TraceState path : this) {
+			bestPaths.add(path);
+		}
+		return bestPaths;
+	}
+
+	/**
+	 * Depth-first walk of the DAG that stops each time it reaches a sink.
+	 * Every DAG cell has a successor until the last layer, so the walk never
+	 * backtracks out of a dead end.
+	 */
+	private class PathIterator implements Iterator<int[]> {
+		/** cells of the current partial trace */
+		private final int[] cells = new int[bestLength];
+		/** next direction to try from each cell of the partial trace */
+		private final int[] nextDirection = new int[bestLength];
+		/** number of cells in the partial trace */
+		private int depth;
+		/** index of the next source to start from */
+		private int nextSource;
+		/** true when cells holds a complete trace not yet returned */
+		private boolean ready;
+		/** true when every trace has been returned */
+		private boolean done = (bestLength == 0);
+
+		@Override
+		public boolean hasNext() {
+			if (!ready && !done) {
+				advance();
+			}
+			return ready;
+		}
+
+		@Override
+		public int[] next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			ready = false;
+			return cells.clone();
+		}
+
+		/** Move to the next complete trace, or mark the iterator done. */
+		private void advance() {
+			// back off the last cell of the previously returned trace
+			if (depth == bestLength) {
+				depth--;
+			}
+			while (true) {
+				if (depth == 0) {
+					if (nextSource == sources.length) {
+						done = true;
+						return;
+					}
+					cells[0] = sources[nextSource++];
+					nextDirection[0] = 0;
+					depth = 1;
+				}
+				if (depth == bestLength) {
+					ready = true;
+					return;
+				}
+				int cell = cells[depth - 1];
+				int direction = nextDirection[depth - 1];
+				while (direction < BoardGrid.DIRECTIONS && (successors[cell] & (1 << direction)) == 0) {
+					direction++;
+				}
+				nextDirection[depth - 1] = direction + 1;
+				if (direction < BoardGrid.DIRECTIONS) {
+					cells[depth] = grid.neighbor(cell, direction);
+					nextDirection[depth] = 0;
+					depth++;
+				} else {
+					depth--;
+				}
+			}
+		}
+	}
+} // class ShortestPathDag
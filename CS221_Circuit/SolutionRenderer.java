@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes solution boards to a stream without building a CircuitBoard or a
+ * String for each one. The base board is rendered once, in the format of
+ * CircuitBoard.toString() followed by a blank line as println would leave,
+ * into a byte[] that every solution reuses: its trace positions are set to
+ * 'T', the whole buffer is written in one call, and the same positions are
+ * put back. A solution costs its path length plus one write, whatever the
+ * size of the board.
+ * 
+ * In traces-only mode a solution is instead one line listing the row,col of
+ * each trace from the '1' end to the '2' end, which is all that differs
+ * from the input board:
+ * 
+ * 0,1 0,2 1,2 2,2
+ * 
+ * The stream is not flushed or closed; wrap it in a BufferedOutputStream
+ * unless it is buffered already.
+ * 
+ * @author Kyle Truschel
+ */
+public class SolutionRenderer {
+	/** end of line written by println */
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+	private final CircuitBoard board;
+	private final OutputStream out;
+	private final boolean tracesOnly;
+	/** bytes per rendered row: a char and a space per column, then '\n' */
+	private final int rowWidth;
+	/** rendered base board, restored after each solution; null for traces only */
+	private final byte[] text;
+	/** trace cells of the solution being written, reused */
+	private int[] cells;
+	/** line being built in traces-only mode, reused and grown as needed */
+	private byte[] line = new byte[64];
+
+	/**
+	 * @param board      board the solutions were found on, not modified
+	 * @param out        stream to write to
+	 * @param tracesOnly true to write only the trace positions of each
+	 *                   solution, false to write the whole board
+	 */
+	public SolutionRenderer(CircuitBoard board, OutputStream out, boolean tracesOnly) {
+		this.board = board;
+		this.out = out;
+		this.tracesOnly = tracesOnly;
+		rowWidth = board.numCols() * 2 + 1;
+		cells = new int[16];
+		if (tracesOnly) {
+			text = null;
+			return;
+		}
+		text = new byte[board.numRows() * rowWidth + LINE_SEPARATOR.length];
+		int pos = 0;
+		for (int row = 0; row < board.numRows(); row++) {
+			for (int col = 0; col < board.numCols(); col++) {
+				text[pos++] = (byte) board.charAt(row, col);
+				text[pos++] = ' ';
+			}
+			text[pos++] = '\n';
+		}
+		System.arraycopy(LINE_SEPARATOR, 0, text, pos, LINE_SEPARATOR.length);
+	}
+
+	/**
+	 * Write one solution found by a TraceState search.
+	 * 
+	 * @param path solution to write
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(TraceState path) throws IOException {
+		if (cells.length < path.pathLength()) {
+			cells = new int[Math.max(path.pathLength(), cells.length * 2)];
+		}
+		write(cells, path.pathCells(cells));
+	}
+
+	/**
+	 * Write one solution given as cell indices, row * numCols + col.
+	 * 
+	 * @param trace trace cells in order from the '1' end
+	 * @param count number of cells of trace to use
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(int[] trace, int count) throws IOException {
+		int cols = board.numCols();
+		if (tracesOnly) {
+			int pos = 0;
+			for (int i = 0; i < count; i++) {
+				// two ints, a comma and a separator never take more than 24 bytes
+				if (pos + 24 > line.length) {
+					byte[] grown = new byte[line.length * 2];
+					System.arraycopy(line, 0, grown, 0, pos);
+					line = grown;
+				}
+				if (i > 0) {
+					line[pos++] = ' ';
+				}
+				pos = appendInt(trace[i] / cols, pos);
+				line[pos++] = ',';
+				pos = appendInt(trace[i] % cols, pos);
+			}
+			out.write(line, 0, pos);
+			out.write(LINE_SEPARATOR);
+			return;
+		}
+		for (int i = 0; i < count; i++) {
+			text[offset(trace[i], cols)] = 'T';
+		}
+		out.write(text);
+		for (int i = 0; i < count; i++) {
+			int cell = trace[i];
+			text[offset(cell, cols)] = (byte) board.charAt(cell / cols, cell % cols);
+		}
+	}
+
+	/**
+	 * @param cell cell index
+	 * @param cols number of columns
+	 * @return position of the cell's char in text
+	 */
+	private int offset(int cell, int cols) {
+		return cell / cols * rowWidth + cell % cols * 2;
+	}
+
+	/**
+	 * Write the decimal digits of a non-negative int into line.
+	 * 
+	 * @param value value to write
+	 * @param pos   position in line to write at
+	 * @return position after the last digit
+	 */
+	private int appendInt(int value, int pos) {
+		int end = pos + digits(value);
+		for (int i = end - 1; i >= pos; i--) {
+			line[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		return end;
+	}
+
+	/**
+	 * @param value non-negative int
+	 * @return number of decimal digits in value
+	 */
+	private static int digits(int value) {
+		int count = 1;
+		while (value >= 10) {
+			value /= 10;
+			count++;
+		}
+		return count;
+	}
+} // class SolutionRenderer
@@ -0,0 +1,76 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Local stand-in client for SolverDaemon. Sends one request and prints the
+ * response the way CircuitTracer prints its own results, so
+ * 
+ * java SolverClient -q board.dat
+ * 
+ * prints the same paths as java CircuitTracer -q -c board.dat.
+ * 
+ * @author Kyle Truschel
+ */
+public class SolverClient {
+
+	/**
+	 * Send one request to a SolverDaemon on this machine.
+	 * 
+	 * @param args [-port n] strategy filename, or [-port n] STATS|SHUTDOWN
+	 */
+	public static void main(String[] args) {
+		int port = SolverDaemon.DEFAULT_PORT;
+		int first = 0;
+		try {
+			if (args.length > 1 && args[0].equals("-port")) {
+				port = Integer.parseInt(args[1]);
+				first = 2;
+			}
+		} catch (NumberFormatException e) {
+			first = args.length;
+		}
+		String request;
+		if (args.length - first == 1 && (args[first].equals("STATS") || args[first].equals("SHUTDOWN"))) {
+			request = args[first];
+		} else if (args.length - first == 2) {
+			// the daemon may run in another directory
+			request = "SOLVE " + args[first] + " " + new File(args[first + 1]).getAbsolutePath();
+		} else {
+			System.out.println("Usage: java SolverClient [-port n] -s|-q|-f|-d|-a|-r|-b|-j filename \n"
+					+ "    or java SolverClient [-port n] STATS|SHUTDOWN");
+			return;
+		}
+
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+				PrintWriter out = new PrintWriter(new BufferedWriter(
+						new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+			out.println(request);
+			out.flush();
+			String status = in.readLine();
+			if (status == null) {
+				System.out.println("SolverDaemon closed the connection.");
+				return;
+			}
+			// a SOLVE status line is not part of CircuitTracer's output
+			if (!request.startsWith("SOLVE ") || (status.startsWith("ERROR ") && !status.equals("ERROR"))) {
+				System.out.println(status);
+			}
+			String line;
+			while ((line = in.readLine()) != null && !line.equals(SolverDaemon.END)) {
+				System.out.println(line);
+			}
+		} catch (IOException e) {
+			System.out.println(e + " SolverDaemon could not be reached.");
+		}
+	}
+} // class SolverClient
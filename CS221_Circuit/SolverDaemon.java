@@ -0,0 +1,414 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resident solver that answers board requests over a loopback socket, so a
+ * caller tracing many boards pays for JVM startup and warm-up only once.
+ * Requests are single lines of text:
+ * 
+ * SOLVE strategy filename - trace the board with -s, -q, -f, -d, -a, -r, -b
+ * or -j
+ * STATS - report cache and queue counters
+ * SHUTDOWN - stop accepting requests and exit
+ * 
+ * Each response starts with an OK or ERROR line, then holds exactly what
+ * CircuitTracer would print to the console, written by the same
+ * SolverResult.writeTo, and ends with a line holding only END.
+ * 
+ * Every strategy but -j finds the same set of all shortest paths, while -j
+ * finds just one of them, so results are cached by the contents of the
+ * parsed CircuitBoard together with whether the strategy finds one path or
+ * all of them, in an LRU map of at most the given number of entries. A
+ * board being solved is already in the cache as an unfinished Future, so
+ * the same board requested again while it is being solved waits for that
+ * search instead of starting another. Uncached boards go to a fixed pool of
+ * solver threads with a bounded queue; a request arriving when the queue is
+ * full is answered with ERROR busy.
+ * 
+ * Searches with -s, -q, -a and -r are given a SearchBudget, so one board
+ * with too many paths cannot hold a solver thread or the heap forever; the
+ * other strategies take polynomial time and are never limited. A search that
+ * runs out of budget is answered with its best paths so far and the same
+ * stopped early line as CircuitTracer prints, and is not cached. A client
+ * that sends nothing for the idle timeout is disconnected, so idle
+ * connections cannot hold every connection thread.
+ * 
+ * @author Kyle Truschel
+ */
+public class SolverDaemon {
+	/** default port, on the loopback address only */
+	public static final int DEFAULT_PORT = 7221;
+	/** line ending every response */
+	public static final String END = "END";
+	/** default milliseconds each limited search may run */
+	public static final int DEFAULT_TIME_LIMIT = 10000;
+	/** default TraceStates each limited search may create */
+	public static final int DEFAULT_STATE_LIMIT = 2000000;
+	/** default seconds a connection may wait between requests */
+	public static final int DEFAULT_IDLE_SECONDS = 60;
+
+	private final ServerSocket server;
+	/** reads requests and writes responses, one connection per thread */
+	private final ExecutorService connections;
+	/** runs the searches for uncached boards */
+	private final ThreadPoolExecutor solvers;
+	/** results by board contents and path count, least recently used first */
+	private final LinkedHashMap<CacheKey, Future<SolverResult>> cache;
+	/** milliseconds and TraceStates each limited search may use, 0 for no limit */
+	private final int timeLimit;
+	private final int stateLimit;
+	/** milliseconds a connection may wait between requests, 0 for no limit */
+	private final int idleMillis;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private volatile boolean running = true;
+
+	/**
+	 * Start listening on the loopback address with the default search and
+	 * idle limits.
+	 * 
+	 * @param port          port to listen on, 0 for any free port
+	 * @param cacheSize     most results to keep, at least 1
+	 * @param workers       number of solver threads, at least 1
+	 * @param queueCapacity most uncached boards waiting for a solver thread
+	 * @throws IOException if the port cannot be opened
+	 */
+	public SolverDaemon(int port, int cacheSize, int workers, int queueCapacity) throws IOException {
+		this(port, cacheSize, workers, queueCapacity, DEFAULT_TIME_LIMIT, DEFAULT_STATE_LIMIT, DEFAULT_IDLE_SECONDS);
+	}
+
+	/**
+	 * Start listening on the loopback address.
+	 * 
+	 * @param port          port to listen on, 0 for any free port
+	 * @param cacheSize     most results to keep, at least 1
+	 * @param workers       number of solver threads, at least 1
+	 * @param queueCapacity most uncached boards waiting for a solver thread
+	 * @param timeLimit     milliseconds each -s, -q, -a or -r search may run,
+	 *                      0 for no limit
+	 * @param stateLimit    TraceStates each of those searches may create, 0
+	 *                      for no limit
+	 * @param idleSeconds   seconds a connection may wait between requests, 0
+	 *                      for no limit
+	 * @throws IOException if the port cannot be opened
+	 */
+	public SolverDaemon(int port, int cacheSize, int workers, int queueCapacity, int timeLimit, int stateLimit,
+			int idleSeconds) throws IOException {
+		this.timeLimit = timeLimit;
+		this.stateLimit = stateLimit;
+		idleMillis = idleSeconds * 1000;
+		server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		connections = Executors.newFixedThreadPool(workers + queueCapacity);
+		solvers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity));
+		cache = new LinkedHashMap<CacheKey, Future<SolverResult>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CacheKey, Future<SolverResult>> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Launch the daemon.
+	 * 
+	 * @param args optional pairs: -port n, -cache boards, -workers threads,
+	 *             -queue boards, -limit millis, -states count, -idle seconds
+	 */
+	public static void main(String[] args) {
+		int port = DEFAULT_PORT;
+		int cacheSize = 256;
+		int workers = Runtime.getRuntime().availableProcessors();
+		int queueCapacity = 64;
+		int timeLimit = DEFAULT_TIME_LIMIT;
+		int stateLimit = DEFAULT_STATE_LIMIT;
+		int idleSeconds = DEFAULT_IDLE_SECONDS;
+		try {
+			for (int i = 0; i < args.length; i += 2) {
+				int value = Integer.parseInt(args[i + 1]);
+				// 0 is any free port or no limit, but never no threads or boards
+				if (value < 0 || (value == 0 && !args[i].equals("-port") && !args[i].equals("-limit")
+						&& !args[i].equals("-states") && !args[i].equals("-idle"))) {
+					throw new IllegalArgumentException(args[i]);
+				}
+				switch (args[i]) {
+					case "-port":
+						port = value;
+						break;
+					case "-cache":
+						cacheSize = value;
+						break;
+					case "-workers":
+						workers = value;
+						break;
+					case "-queue":
+						queueCapacity = value;
+						break;
+					case "-limit":
+						timeLimit = value;
+						break;
+					case "-states":
+						stateLimit = value;
+						break;
+					case "-idle":
+						idleSeconds = value;
+						break;
+					default:
+						throw new IllegalArgumentException(args[i]);
+				}
+			}
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			System.out.println("Usage: java SolverDaemon [-port n] [-cache boards] [-workers threads] [-queue boards]"
+					+ " [-limit millis] [-states count] [-idle seconds]");
+			return;
+		}
+		try {
+			SolverDaemon daemon = new SolverDaemon(port, cacheSize, workers, queueCapacity, timeLimit, stateLimit,
+					idleSeconds);
+			System.out.println("SolverDaemon listening on " + daemon.getPort());
+			daemon.serve();
+		} catch (IOException e) {
+			System.out.println(e + " SolverDaemon could not be started.");
+		}
+	}
+
+	/** @return port the daemon is listening on */
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Accept connections until a SHUTDOWN request or close() is received.
+	 */
+	public void serve() {
+		while (running) {
+			try {
+				Socket socket = server.accept();
+				connections.execute(() -> handle(socket));
+			} catch (IOException e) {
+				// the server socket was closed by shutdown
+			} catch (RejectedExecutionException e) {
+				// shutting down
+			}
+		}
+	}
+
+	/** Stop accepting requests and release the socket and threads. */
+	public void close() {
+		running = false;
+		try {
+			server.close();
+		} catch (IOException e) {
+			// already closed
+		}
+		connections.shutdown();
+		solvers.shutdown();
+	}
+
+	/**
+	 * Answer every request sent on one connection, until the client closes it
+	 * or sends nothing for the idle timeout.
+	 * 
+	 * @param socket connection to a client
+	 */
+	private void handle(Socket socket) {
+		try (Socket client = socket;
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+				OutputStream bytes = new BufferedOutputStream(client.getOutputStream());
+				PrintWriter out = new PrintWriter(new BufferedWriter(
+						new OutputStreamWriter(bytes, StandardCharsets.UTF_8)))) {
+			client.setSoTimeout(idleMillis);
+			String request;
+			while ((request = in.readLine()) != null) {
+				if (request.equals("SHUTDOWN")) {
+					out.println("OK shutting down");
+					out.println(END);
+					out.flush();
+					close();
+					return;
+				}
+				if (request.equals("STATS")) {
+					out.println("OK hits=" + hits.sum() + " misses=" + misses.sum() + " rejected=" + rejected.sum()
+							+ " cached=" + cacheSize() + " queued=" + solvers.getQueue().size());
+				} else if (request.startsWith("SOLVE ")) {
+					solve(request, out, bytes);
+				} else {
+					out.println("ERROR unknown request: " + request);
+				}
+				out.println(END);
+				out.flush();
+			}
+		} catch (IOException e) {
+			// client went away or stayed idle too long, nothing to answer
+		}
+	}
+
+	/**
+	 * Answer one SOLVE request.
+	 * 
+	 * @param request SOLVE line from the client
+	 * @param out     response writer
+	 * @param bytes   stream under out, for the paths written by the result
+	 * @throws IOException if the paths cannot be written to the client
+	 */
+	private void solve(String request, PrintWriter out, OutputStream bytes) throws IOException {
+		String[] parts = request.split(" ", 3);
+		if (parts.length < 3 || !isStrategy(parts[1])) {
+			out.println("ERROR usage: SOLVE -s|-q|-f|-d|-a|-r|-b|-j filename");
+			return;
+		}
+		SolverOptions options = SolverOptions.defaults().withStrategy(SolverOptions.Strategy.fromFlag(parts[1]));
+		if (options.strategy().isBudgeted()) {
+			options = options.withTimeLimit(timeLimit).withStateLimit(stateLimit);
+		}
+		CircuitSolver solver = new CircuitSolver(options);
+		CircuitBoard board;
+		try {
+			board = CircuitTracer.loadBoard(parts[2]);
+		} catch (FileNotFoundException e) {
+			out.println("ERROR");
+			out.println(e + " File was not found.");
+			return;
+		} catch (InvalidFileFormatException e) {
+			out.println("ERROR");
+			out.println(e + " File is not in the correct format.");
+			return;
+		}
+
+		// jump point search and first-path searches find one path, the rest all of them
+		CacheKey key = new CacheKey(board,
+				options.strategy() == SolverOptions.Strategy.jumpPoint || options.firstPathOnly());
+		Future<SolverResult> result;
+		boolean hit;
+		synchronized (cache) {
+			result = cache.get(key);
+			hit = result != null;
+			if (!hit) {
+				try {
+					result = solvers.submit(() -> solver.solve(board));
+				} catch (RejectedExecutionException e) {
+					rejected.increment();
+					out.println("ERROR busy");
+					return;
+				}
+				// the key holds a private copy so it can never change under the map
+				cache.put(new CacheKey(new CircuitBoard(board), key.onePath), result);
+			}
+		}
+		(hit ? hits : misses).increment();
+
+		SolverResult solved;
+		try {
+			solved = result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			out.println("ERROR interrupted");
+			return;
+		} catch (ExecutionException e) {
+			// do not keep answering with a failed search
+			synchronized (cache) {
+				cache.remove(key, result);
+			}
+			out.println("ERROR " + e.getCause());
+			return;
+		}
+		if (solved.isPartial()) {
+			// a later request may have more time, so only complete results are kept
+			synchronized (cache) {
+				cache.remove(key, result);
+			}
+		}
+		out.println("OK " + solved.pathCount() + (hit ? " cached" : " solved"));
+		// everything out holds goes first, so the paths follow the OK line
+		out.flush();
+		solved.writeTo(bytes);
+		if (solved.isPartial()) {
+			out.println(CircuitTracer.partialNote(solved.stoppedBy()));
+		}
+	}
+
+	/** @return number of results in the cache */
+	private int cacheSize() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * @param arg command line style argument
+	 * @return true if arg names a strategy that lists paths
+	 */
+	private static boolean isStrategy(String arg) {
+		switch (arg) {
+			case "-s":
+			case "-q":
+			case "-f":
+			case "-d":
+			case "-a":
+			case "-r":
+			case "-b":
+			case "-j":
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Cache key: the contents of a board and whether one path or all
+	 * shortest paths were asked for.
+	 */
+	private static final class CacheKey {
+		private final CircuitBoard board;
+		private final boolean onePath;
+
+		/**
+		 * @param board   board contents, not changed while the key is in use
+		 * @param onePath true if the strategy finds only one shortest path
+		 */
+		CacheKey(CircuitBoard board, boolean onePath) {
+			this.board = board;
+			this.onePath = onePath;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey key = (CacheKey) other;
+			return onePath == key.onePath && board.equals(key.board);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * board.hashCode() + (onePath ? 1 : 0);
+		}
+	}
+} // class SolverDaemon
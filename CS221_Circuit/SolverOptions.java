@@ -0,0 +1,259 @@
+/**
+ * How a CircuitSolver searches and what its results hold: the strategy,
+ * the settings of that strategy, the limits on each search and the output
+ * mode. Options are immutable. Each with method returns a changed copy and
+ * checks that the new combination makes sense, the same way CircuitTracer
+ * checks its command line:
+ * 
+ * SolverOptions options = SolverOptions.defaults()
+ * .withStrategy(SolverOptions.Strategy.branchAndBound).withTimeLimit(50);
+ * 
+ * @author Kyle Truschel
+ */
+public class SolverOptions {
+	/** search strategies, each named after its CircuitTracer flag */
+	public static enum Strategy {
+		stack("-s"), queue("-q"), packed("-f"), dag("-d"), aStar("-a"), branchAndBound("-r"),
+		bidirectional("-b"), jumpPoint("-j");
+
+		private final String flag;
+
+		/**
+		 * @param flag CircuitTracer command line flag
+		 */
+		private Strategy(String flag) {
+			this.flag = flag;
+		}
+
+		/** @return CircuitTracer command line flag of the strategy */
+		public String flag() {
+			return flag;
+		}
+
+		/** @return true for the strategies that run on a Storage and check a budget */
+		public boolean isBudgeted() {
+			return this == stack || this == queue || this == aStar || this == branchAndBound;
+		}
+
+		/**
+		 * @param flag CircuitTracer command line flag
+		 * @return strategy with that flag
+		 * @throws IllegalArgumentException if no strategy has that flag
+		 */
+		public static Strategy fromFlag(String flag) {
+			for (Strategy strategy : values()) {
+				if (strategy.flag.equals(flag)) {
+					return strategy;
+				}
+			}
+			throw new IllegalArgumentException("not a search strategy: " + flag);
+		}
+	}
+
+	/** what a result writes for the paths it found */
+	public static enum Output {
+		/** every path as a whole board, as CircuitBoard.toString() */
+		boards,
+		/** every path as one line of row,col trace coordinates */
+		traces,
+		/** only the shortest length and number of paths, which are not listed (dag only) */
+		count
+	}
+
+	private static final SolverOptions DEFAULTS = new SolverOptions(Strategy.queue, Output.boards, 0, false, false, 0,
+			0, 0);
+
+	private final Strategy strategy;
+	private final Output output;
+	/** worker threads for stack or queue, 0 to search on the calling thread */
+	private final int threads;
+	/** true to start branchAndBound with the BFS shortest length */
+	private final boolean seedBound;
+	/** true to stop aStar or bidirectional at the first shortest path */
+	private final boolean firstPathOnly;
+	/** transposition table entries for stack or queue, 0 for none */
+	private final int tableSize;
+	/** milliseconds each search may run, 0 for no limit */
+	private final long timeLimit;
+	/** TraceStates each search may create, 0 for no limit */
+	private final long stateLimit;
+
+	/**
+	 * @param strategy   search strategy
+	 * @param output     output mode
+	 * @param threads    worker threads, 0 for none
+	 * @param seedBound  true to seed the branch-and-bound bound
+	 * @param firstOnly  true to stop at the first shortest path
+	 * @param tableSize  transposition table entries, 0 for none
+	 * @param timeLimit  milliseconds per search, 0 for no limit
+	 * @param stateLimit TraceStates per search, 0 for no limit
+	 * @throws IllegalArgumentException if the combination is not valid
+	 */
+	private SolverOptions(Strategy strategy, Output output, int threads, boolean seedBound, boolean firstOnly,
+			int tableSize, long timeLimit, long stateLimit) {
+		if (strategy == null || output == null) {
+			throw new IllegalArgumentException("strategy and output are required");
+		}
+		if (threads < 0 || tableSize < 0 || timeLimit < 0 || stateLimit < 0) {
+			throw new IllegalArgumentException("settings must not be negative");
+		}
+		boolean storage = strategy == Strategy.stack || strategy == Strategy.queue;
+		if (threads > 0 && !storage) {
+			throw new IllegalArgumentException("only stack and queue searches use threads");
+		}
+		if (tableSize > 0 && (!storage || threads > 0)) {
+			throw new IllegalArgumentException("only single-threaded stack and queue searches use a table");
+		}
+		if ((timeLimit > 0 || stateLimit > 0) && !strategy.isBudgeted()) {
+			throw new IllegalArgumentException(strategy + " searches cannot be limited");
+		}
+		if (seedBound && strategy != Strategy.branchAndBound) {
+			throw new IllegalArgumentException("only branchAndBound has a bound to seed");
+		}
+		if (firstOnly && strategy != Strategy.aStar && strategy != Strategy.bidirectional) {
+			throw new IllegalArgumentException("only aStar and bidirectional can stop at the first path");
+		}
+		if (output == Output.count && strategy != Strategy.dag) {
+			throw new IllegalArgumentException("only dag searches count paths without listing them");
+		}
+		this.strategy = strategy;
+		this.output = output;
+		this.threads = threads;
+		this.seedBound = seedBound;
+		this.firstPathOnly = firstOnly;
+		this.tableSize = tableSize;
+		this.timeLimit = timeLimit;
+		this.stateLimit = stateLimit;
+	}
+
+	/** @return queue strategy, whole boards, no threads, table or limits */
+	public static SolverOptions defaults() {
+		return DEFAULTS;
+	}
+
+	/**
+	 * @param strategy search strategy
+	 * @return copy of these options with the given strategy
+	 * @throws IllegalArgumentException if the other options do not fit it
+	 */
+	public SolverOptions withStrategy(Strategy strategy) {
+		return new SolverOptions(strategy, output, threads, seedBound, firstPathOnly, tableSize, timeLimit, stateLimit);
+	}
+
+	/**
+	 * @param output output mode
+	 * @return copy of these options with the given output mode
+	 * @throws IllegalArgumentException if count is asked of a strategy other than dag
+	 */
+	public SolverOptions withOutput(Output output) {
+		return new SolverOptions(strategy, output, threads, seedBound, firstPathOnly, tableSize, timeLimit, stateLimit);
+	}
+
+	/**
+	 * @param threads worker threads for a stack or queue search, 0 for none
+	 * @return copy of these options with the given threads
+	 * @throws IllegalArgumentException if the strategy is not stack or queue
+	 */
+	public SolverOptions withThreads(int threads) {
+		return new SolverOptions(strategy, output, threads, seedBound, firstPathOnly, tableSize, timeLimit, stateLimit);
+	}
+
+	/**
+	 * @param seedBound true to start a branchAndBound search with the BFS
+	 *                  shortest length as its bound
+	 * @return copy of these options with the given setting
+	 * @throws IllegalArgumentException if the strategy is not branchAndBound
+	 */
+	public SolverOptions withSeedBound(boolean seedBound) {
+		return new SolverOptions(strategy, output, threads, seedBound, firstPathOnly, tableSize, timeLimit, stateLimit);
+	}
+
+	/**
+	 * @param firstOnly true to stop an aStar or bidirectional search at the
+	 *                  first shortest path instead of finding all of them
+	 * @return copy of these options with the given setting
+	 * @throws IllegalArgumentException if the strategy is not aStar or
+	 *                                  bidirectional
+	 */
+	public SolverOptions withFirstPathOnly(boolean firstOnly) {
+		return new SolverOptions(strategy, output, threads, seedBound, firstOnly, tableSize, timeLimit, stateLimit);
+	}
+
+	/**
+	 * @param tableSize transposition table entries for a single-threaded
+	 *                  stack or queue search, 0 for none
+	 * @return copy of these options with the given table size
+	 * @throws IllegalArgumentException if the search cannot use a table
+	 */
+	public SolverOptions withTableSize(int tableSize) {
+		return new SolverOptions(strategy, output, threads, seedBound, firstPathOnly, tableSize, timeLimit, stateLimit);
+	}
+
+	/**
+	 * @param millis milliseconds each search may run, 0 for no limit
+	 * @return copy of these options with the given time limit
+	 * @throws IllegalArgumentException if the strategy cannot be limited
+	 */
+	public SolverOptions withTimeLimit(long millis) {
+		return new SolverOptions(strategy, output, threads, seedBound, firstPathOnly, tableSize, millis, stateLimit);
+	}
+
+	/**
+	 * @param states TraceStates each search may create, 0 for no limit
+	 * @return copy of these options with the given state limit
+	 * @throws IllegalArgumentException if the strategy cannot be limited
+	 */
+	public SolverOptions withStateLimit(long states) {
+		return new SolverOptions(strategy, output, threads, seedBound, firstPathOnly, tableSize, timeLimit, states);
+	}
+
+	/**
+	 * Start the clock on a new search's limits. Pass the budget to
+	 * CircuitSolver.solve to be able to cancel that search.
+	 * 
+	 * @return budget with these options' limits, counted from now
+	 */
+	public SearchBudget newBudget() {
+		return new SearchBudget(timeLimit, stateLimit);
+	}
+
+	/** @return search strategy */
+	public Strategy strategy() {
+		return strategy;
+	}
+
+	/** @return output mode */
+	public Output output() {
+		return output;
+	}
+
+	/** @return worker threads, 0 to search on the calling thread */
+	public int threads() {
+		return threads;
+	}
+
+	/** @return true to seed the branch-and-bound bound */
+	public boolean seedBound() {
+		return seedBound;
+	}
+
+	/** @return true to stop at the first shortest path */
+	public boolean firstPathOnly() {
+		return firstPathOnly;
+	}
+
+	/** @return transposition table entries, 0 for none */
+	public int tableSize() {
+		return tableSize;
+	}
+
+	/** @return milliseconds each search may run, 0 for no limit */
+	public long timeLimit() {
+		return timeLimit;
+	}
+
+	/** @return TraceStates each search may create, 0 for no limit */
+	public long stateLimit() {
+		return stateLimit;
+	}
+} // class SolverOptions
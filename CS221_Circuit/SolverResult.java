@@ -0,0 +1,102 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What one CircuitSolver search found: the shortest paths, or only their
+ * number in count mode, whether the search stopped early, and the metrics
+ * of the search. A result is not changed after it is made, so it can be
+ * handed between threads; only its SearchMetrics is mutable, and the solver
+ * is done with it.
+ * 
+ * @author Kyle Truschel
+ */
+public class SolverResult {
+	private final CircuitBoard board;
+	private final SolverOptions.Output output;
+	/** paths found, empty in count mode */
+	private final List<TraceState> paths;
+	/** length of the paths found, 0 if there are none */
+	private final int pathLength;
+	private final BigInteger pathCount;
+	private final SearchMetrics metrics;
+
+	/**
+	 * @param board      board that was searched
+	 * @param output     output mode of the search
+	 * @param paths      paths found, not copied
+	 * @param pathLength length of the shortest paths, 0 if there are none
+	 * @param pathCount  number of shortest paths found
+	 * @param metrics    metrics of the search
+	 */
+	SolverResult(CircuitBoard board, SolverOptions.Output output, List<TraceState> paths, int pathLength,
+			BigInteger pathCount, SearchMetrics metrics) {
+		this.board = board;
+		this.output = output;
+		this.paths = Collections.unmodifiableList(paths);
+		this.pathLength = pathLength;
+		this.pathCount = pathCount;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Write the result in its output mode: every path as a board or as a
+	 * line of trace coordinates, exactly as CircuitTracer prints them, or
+	 * the shortest length and the number of paths in count mode. Nothing is
+	 * written about a partial result; check isPartial(). The stream is not
+	 * flushed or closed.
+	 * 
+	 * @param out stream to write to, preferably buffered
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		if (output == SolverOptions.Output.count) {
+			String counts = "Shortest path length: " + pathLength + System.lineSeparator()
+					+ "Number of shortest paths: " + pathCount + System.lineSeparator();
+			out.write(counts.getBytes(StandardCharsets.US_ASCII));
+			return;
+		}
+		SolutionRenderer renderer = new SolutionRenderer(board, out, output == SolverOptions.Output.traces);
+		for (TraceState path : paths) {
+			renderer.write(path);
+		}
+	}
+
+	/** @return the paths found, read only; empty in count mode or if there are none */
+	public List<TraceState> getPaths() {
+		return paths;
+	}
+
+	/** @return length of the shortest paths found, 0 if there are none */
+	public int pathLength() {
+		return pathLength;
+	}
+
+	/** @return number of shortest paths found */
+	public BigInteger pathCount() {
+		return pathCount;
+	}
+
+	/** @return true if the search stopped early and the paths are the best found so far */
+	public boolean isPartial() {
+		return metrics.isPartial();
+	}
+
+	/** @return limit that stopped the search early, or null if it ran to the end */
+	public SearchBudget.Limit stoppedBy() {
+		return metrics.stoppedBy();
+	}
+
+	/**
+	 * Counters the strategy does not keep are not applicable rather than 0;
+	 * check SearchMetrics.isKept before reading one. Count mode keeps none.
+	 * 
+	 * @return counters and timings of the search
+	 */
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+} // class SolverResult
@@ -1,6 +1,5 @@
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.Stack;
+import java.util.Comparator;
+import java.util.PriorityQueue;
 
 /** A container for storing elements of type T in one of several
  *  possible underlying data structures.
@@ -16,26 +15,57 @@ import java.util.Stack;
 public class Storage<T> 
 {
 	/** supported underlying data structures for Storage to use */
-	public static enum DataStructure {stack, queue}
+	public static enum DataStructure {stack, queue, priority}
 	/** the data structure chosen for this Storage to use */
 	private DataStructure dataStructure;
+	/** default starting capacity of the underlying data structure */
+	public static final int DEFAULT_CAPACITY = 16;
 	/** the data structures - only one will be instantiated and used  */
-	private Queue<T> queue;
-	private Stack<T> stack;
+	private CircularArrayQueue<T> queue;
+	private ArrayStack<T> stack;
+	private PriorityQueue<T> priority;
+	/** largest number of elements stored at once in priority - 
+	 *  stack and queue keep track of their own */
+	private int priorityPeak;
 	
 	/** Constructor
 	 * @param dataStructure choice of DataStructures 
 	 */
 	public Storage(DataStructure dataStructure) 
+	{
+		this(dataStructure, DEFAULT_CAPACITY, null);
+	}
+
+	/** Constructor
+	 * @param dataStructure choice of DataStructures 
+	 * @param comparator ordering for the priority DataStructure, 
+	 *  smallest retrieved first - null for natural ordering
+	 */
+	public Storage(DataStructure dataStructure, Comparator<? super T> comparator) 
+	{
+		this(dataStructure, DEFAULT_CAPACITY, comparator);
+	}
+
+	/** Constructor
+	 * @param dataStructure choice of DataStructures 
+	 * @param initialCapacity number of elements to make room for up front
+	 * @param comparator ordering for the priority DataStructure, 
+	 *  smallest retrieved first - null for natural ordering
+	 */
+	private Storage(DataStructure dataStructure, int initialCapacity, Comparator<? super T> comparator) 
 	{
 		this.dataStructure = dataStructure;
+		initialCapacity = Math.max(1, initialCapacity);
 		switch (this.dataStructure) 
 		{
 			case stack:
-				stack = new Stack<T>();
+				stack = new ArrayStack<T>(initialCapacity);
 				break;
 			case queue:
-				queue = new LinkedList<T>();
+				queue = new CircularArrayQueue<T>(initialCapacity);
+				break;
+			case priority:
+				priority = new PriorityQueue<T>(initialCapacity, comparator);
 		}
 	}
 
@@ -57,6 +87,16 @@ public class Storage<T>
 		return new Storage<E>(DataStructure.queue);
 	}
 	
+	/** Alternative to using the constructor returns
+ 	 * a Storage already configured to use a priority queue
+ 	 * @param comparator ordering of elements, smallest retrieved first
+ 	 * @return instance of Storage configured to use a priority queue
+ 	 */
+	public static <E> Storage<E> getPriorityInstance(Comparator<? super E> comparator) 
+	{
+		return new Storage<E>(DataStructure.priority, comparator);
+	}
+	
 	/** Add element to underlying data structure
 	 * @param element T to store
 	 */
@@ -68,7 +108,14 @@ public class Storage<T>
 				stack.push(element);
 				break;
 			case queue:
-				queue.add(element);
+				queue.enqueue(element);
+				break;
+			case priority:
+				priority.add(element);
+				if (priority.size() > priorityPeak) 
+				{
+					priorityPeak = priority.size();
+				}
 		}
 	}
 	
@@ -84,7 +131,10 @@ public class Storage<T>
 				next = stack.pop();
 				break;
 			case queue:
-				next = queue.remove();
+				next = queue.dequeue();
+				break;
+			case priority:
+				next = priority.remove();
 		}
 		
 		return next;
@@ -101,6 +151,9 @@ public class Storage<T>
 				break;
 			case queue:
 				result = queue.isEmpty();
+				break;
+			case priority:
+				result = priority.isEmpty();
 		}
 		return result;
 	}
@@ -116,7 +169,47 @@ public class Storage<T>
 				break;
 			case queue:
 				size = queue.size();
+				break;
+			case priority:
+				size = priority.size();
 		} 
 		return size;
 	}
+	
+	/** @return largest number of elements stored at once */
+	public int peakSize() 
+	{
+		int peak = 0;
+		switch (dataStructure) 
+		{
+			case stack:
+				peak = stack.peakSize();
+				break;
+			case queue:
+				peak = queue.peakSize();
+				break;
+			case priority:
+				peak = priorityPeak;
+		}
+		return peak;
+	}
+	
+	/** @return number of times the underlying array had to grow - 
+	 *  always 0 for priority, which PriorityQueue grows on its own */
+	public int resizeCount() 
+	{
+		int resizes = 0;
+		switch (dataStructure) 
+		{
+			case stack:
+				resizes = stack.resizeCount();
+				break;
+			case queue:
+				resizes = queue.resizeCount();
+				break;
+			case priority:
+				resizes = 0;
+		}
+		return resizes;
+	}
 } // class Storage
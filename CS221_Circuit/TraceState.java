@@ -1,5 +1,7 @@
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Represents a potential path through a CircuitBoard - a search state for CircuitTracer.
@@ -7,8 +9,28 @@ import java.util.ArrayList;
  * @author mvail
  */
 public class TraceState {
-	private CircuitBoard board;		//state of the current board
-	private ArrayList<Point> path;	//history of traces added
+	private OverlayBoard board;		//starting board plus this state's traces
+	private PathNode path;			//last trace added, linked back to the first
+	
+	/** One trace of a path. Nodes are never changed once created, so every
+	 * state grown from the same previous state shares that state's nodes
+	 * instead of copying them - a new state costs one node, not a whole path.
+	 */
+	private static final class PathNode {
+		private final int row;
+		private final int col;
+		private final int length;		//number of traces up to and including this one
+		private final PathNode previous;	//null for the first trace
+		private final long hash;		//Zobrist hash of the traces up to and including this one
+		
+		private PathNode(int row, int col, PathNode previous) {
+			this.row = row;
+			this.col = col;
+			this.previous = previous;
+			this.length = (previous == null ? 1 : previous.length + 1);
+			this.hash = (previous == null ? 0 : previous.hash) ^ TranspositionTable.traceKey(row, col);
+		}
+	}
 	
 	/** Initial state with the trace path beginning at given row and column
 	 * @param startingBoard 
@@ -16,10 +38,18 @@ public class TraceState {
 	 * @param col initial path column
 	 */
 	public TraceState(CircuitBoard startingBoard, int row, int col) {
-		board = new CircuitBoard(startingBoard);
-		path = new ArrayList<Point>();
-		board.makeTrace(row, col); //will throw exception if row, col is occupied
-		path.add(new Point(row, col));
+		board = new OverlayBoard(startingBoard).withTrace(row, col); //will throw exception if row, col is occupied
+		path = new PathNode(row, col, null);
+	}
+	
+	/** Initial state on a view of the starting board, such as one with pruned positions blocked
+	 * @param startingView board to lay the path over
+	 * @param row initial path row
+	 * @param col initial path column
+	 */
+	public TraceState(OverlayBoard startingView, int row, int col) {
+		board = startingView.withTrace(row, col); //will throw exception if row, col is occupied
+		path = new PathNode(row, col, null);
 	}
 	
 	/** New state adding given row and column position to the path from previous state
@@ -28,10 +58,27 @@ public class TraceState {
 	 * @param col column of next point to add to the path
 	 */
 	public TraceState(TraceState previousState, int row, int col) {
-		board = new CircuitBoard(previousState.board);
-		path = new ArrayList<Point>(previousState.path);
-		board.makeTrace(row, col); //will throw exception if row, col is occupied
-		path.add(new Point(row, col));
+		board = previousState.board.withTrace(row, col); //will throw exception if row, col is occupied
+		path = new PathNode(row, col, previousState.path);
+	}
+	
+	/** State for a complete path found without building intermediate states
+	 * @param startingBoard board the path was found on
+	 * @param points row, column points of the path in order from the start
+	 */
+	public TraceState(CircuitBoard startingBoard, List<Point> points) {
+		this(new OverlayBoard(startingBoard), points);
+	}
+	
+	/** State for a complete path laid over a view shared by the other paths of the same search
+	 * @param startingView board to lay the path over
+	 * @param points row, column points of the path in order from the start
+	 */
+	public TraceState(OverlayBoard startingView, List<Point> points) {
+		board = startingView.withTraces(points); //will throw exception if any point is occupied
+		for (Point p : points) {
+			path = new PathNode(p.x, p.y, path);
+		}
 	}
 	
 	/** Indicates if a position is open in this state's board
@@ -45,43 +92,66 @@ public class TraceState {
 	
 	/** @return path length */
 	public int pathLength() {
-		return path.size();
+		return path.length;
+	}
+	
+	/** @return XOR of TranspositionTable.traceKey over the points of the path,
+	 * the same for every ordering of the same points */
+	public long traceHash() {
+		return path.hash;
 	}
 	
 	/** @return row of the last point in the path */
 	public int getRow() {
-		return path.get(path.size()-1).x;
+		return path.row;
 	}
 	
 	/** @return column of the last point in the path */
 	public int getCol() {
-		return path.get(path.size()-1).y;
+		return path.col;
 	}
 	
-	/** @return the current CircuitBoard from this state with the path filled in with 'T's */
+	/** @return the current CircuitBoard from this state with the path filled in with 'T's,
+	 * built from the shared starting board on each call */
 	public CircuitBoard getBoard() {
-		return new CircuitBoard(board);
+		return board.toCircuitBoard();
 	}
 	
-	/** @return list of row, column points that make up the path */
+	/** @return list of row, column points that make up the path, 
+	 * built from the linked nodes on each call */
 	public ArrayList<Point> getPath() {
-		return new ArrayList<Point>(path);
+		Point[] points = new Point[path.length];
+		for (PathNode node = path; node != null; node = node.previous) {
+			points[node.length - 1] = new Point(node.row, node.col);
+		}
+		return new ArrayList<Point>(Arrays.asList(points));
+	}
+	
+	/** Fill cells with the path as cell indices, row * numCols + col, in order
+	 * from the first point, without building Points or a board
+	 * @param cells array of at least pathLength() entries
+	 * @return path length */
+	public int pathCells(int[] cells) {
+		int cols = board.numCols();
+		for (PathNode node = path; node != null; node = node.previous) {
+			cells[node.length - 1] = node.row * cols + node.col;
+		}
+		return path.length;
 	}
 	
 	/** @return true if path ends adjacent to ending component */
 	public boolean isSolution() {
-		Point p1 = path.get(path.size()-1);
 		Point p2 = board.getEndingPoint();
-		if (p1.x-1 == p2.x && p1.y == p2.y) {
+		if (path.row-1 == p2.x && path.col == p2.y) {
 			return true;
 		}
-		if (p1.x+1 == p2.x && p1.y == p2.y) {
+		if (path.row+1 == p2.x && path.col == p2.y) {
 			return true;
 		}
-		if (p1.x == p2.x && p1.y-1 == p2.y) {
+		if (path.row == p2.x && path.col-1 == p2.y) {
 			return true;
 		}
-		if (p1.x == p2.x && p1.y+1 == p2.y) {
+		if (path.row == p2.x && path.col+1 == p2.y) {
 			return true;
 		}
 		return false;
@@ -0,0 +1,123 @@
+/**
+ * Remembers which search states the -s and -q searches have already
+ * stored, so a state reached again along a different ordering of the same
+ * traces is dropped before it is stored. Two states with the same trace
+ * positions and the same last trace can be extended in exactly the same
+ * ways and lead to the same solution boards, so only the first is needed.
+ * 
+ * States are identified by a Zobrist hash: every position has a 64-bit key
+ * for holding a trace and another for being the last trace, and a state's
+ * hash is the XOR of the keys of its traces and its last trace. The trace
+ * part is kept up to date one trace at a time by TraceState, so hashing a
+ * child costs a few operations and happens before the child is created.
+ * The keys are drawn from a fixed mixing function of the position instead
+ * of a random table, so boards of any size need no key storage.
+ * 
+ * Only the 64-bit hashes are kept, in a fixed number of slots grouped into
+ * small buckets. When a bucket is full, a new hash replaces one of its
+ * entries chosen by the hash itself, so the table never grows past the
+ * size it was given. A replaced state that turns up again is simply stored
+ * a second time; a full table costs duplicates, never solutions. Two
+ * different states sharing a hash would drop a real state, which with
+ * 64-bit hashes is too unlikely to matter.
+ * 
+ * @author Kyle Truschel
+ */
+public class TranspositionTable {
+	/** slots per bucket */
+	private static final int WAYS = 4;
+	/** marks an empty slot; a hash of 0 is stored as 1 */
+	private static final long EMPTY = 0;
+	/** salts giving the trace and last-trace keys of a position */
+	private static final long TRACE_SALT = 0x9E3779B97F4A7C15L;
+	private static final long HEAD_SALT = 0xC2B2AE3D27D4EB4FL;
+
+	/** remembered hashes, WAYS consecutive slots per bucket */
+	private final long[] slots;
+	/** bucket count minus one, a power of two minus one */
+	private final int bucketMask;
+	private long dropped;
+	private long evicted;
+
+	/**
+	 * @param capacity most states remembered, rounded down to a power of two
+	 *                 of at least WAYS
+	 */
+	public TranspositionTable(int capacity) {
+		int buckets = Integer.highestOneBit(Math.max(capacity / WAYS, 1));
+		slots = new long[buckets * WAYS];
+		bucketMask = buckets - 1;
+	}
+
+	/**
+	 * @param row row coordinate
+	 * @param col col coordinate
+	 * @return Zobrist key of a trace at row, col
+	 */
+	public static long traceKey(int row, int col) {
+		return mix(((long) row << 32 | (col & 0xFFFFFFFFL)) ^ TRACE_SALT);
+	}
+
+	/**
+	 * @param row row coordinate
+	 * @param col col coordinate
+	 * @return Zobrist key of the last trace being at row, col
+	 */
+	public static long headKey(int row, int col) {
+		return mix(((long) row << 32 | (col & 0xFFFFFFFFL)) ^ HEAD_SALT);
+	}
+
+	/**
+	 * SplitMix64 finalizer, which spreads every input bit over the output.
+	 * 
+	 * @param value value to mix
+	 * @return mixed value
+	 */
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+
+	/**
+	 * Record the state that extending a state to row, col would create.
+	 * 
+	 * @param state state about to be extended
+	 * @param row   row of the new trace
+	 * @param col   col of the new trace
+	 * @return true if the new state has not been seen and should be stored,
+	 *         false if it is a duplicate to drop
+	 */
+	public boolean visit(TraceState state, int row, int col) {
+		long hash = state.traceHash() ^ traceKey(row, col) ^ headKey(row, col);
+		if (hash == EMPTY) {
+			hash = 1;
+		}
+		int first = (int) (hash ^ (hash >>> 32)) & bucketMask;
+		first *= WAYS;
+		for (int slot = first; slot < first + WAYS; slot++) {
+			if (slots[slot] == hash) {
+				dropped++;
+				return false;
+			}
+			if (slots[slot] == EMPTY) {
+				slots[slot] = hash;
+				return true;
+			}
+		}
+		// bucket is full, bits the bucket index did not use pick the entry to replace
+		slots[first + (int) (hash >>> 60) % WAYS] = hash;
+		evicted++;
+		return true;
+	}
+
+	/** @return number of duplicate states dropped */
+	public long dropped() {
+		return dropped;
+	}
+
+	/** @return number of remembered states replaced because their bucket was full */
+	public long evicted() {
+		return evicted;
+	}
+} // class TranspositionTable